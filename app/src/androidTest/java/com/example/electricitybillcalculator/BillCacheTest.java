@@ -0,0 +1,111 @@
+package com.example.electricitybillcalculator;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bills listed are served by id from the cache until they are changed.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BillCacheTest {
+
+    private static final String TEST_DATABASE = "cache_test.db";
+
+    private Context context;
+    private DatabaseHelper databaseHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        databaseHelper = new DatabaseHelper(context, TEST_DATABASE);
+        for (int i = 1; i <= 40; i++) {
+            databaseHelper.addBill(bill(i, "March", i * 10));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        databaseHelper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void listedBillOpensFromCache() {
+        BillCache cache = databaseHelper.getBillCache();
+        BillModel listed = databaseHelper.getBillsPage(null, 30).get(5);
+
+        BillModel opened = databaseHelper.getBillById(listed.getId());
+        assertEquals(1, cache.getHits());
+        assertEquals(0, cache.getMisses());
+        assertEquals(listed.getUnits(), opened.getUnits(), 0);
+
+        // Editing the copy handed out leaves the cached bill alone
+        opened.setUnits(999);
+        assertEquals(listed.getUnits(), databaseHelper.getBillById(listed.getId()).getUnits(), 0);
+    }
+
+    @Test
+    public void updateAndDeleteInvalidate() {
+        BillCache cache = databaseHelper.getBillCache();
+        BillModel listed = databaseHelper.getBillsPage(null, 30).get(0);
+
+        listed.setUnits(555);
+        assertTrue(databaseHelper.updateBill(listed));
+        assertEquals(555, databaseHelper.getBillById(listed.getId()).getUnits(), 0);
+        assertEquals(1, cache.getMisses());
+
+        assertTrue(databaseHelper.deleteBill(listed.getId()));
+        assertNull(databaseHelper.getBillById(listed.getId()));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedWithinSizeLimit() {
+        BillModel first = bill(1, "March", 10);
+        BillModel second = bill(2, "March", 20);
+        BillModel third = bill(3, "March", 30);
+        BillCache cache = new BillCache(2 * BillCache.estimateBytes(first));
+
+        cache.put(first, cache.generation());
+        cache.put(second, cache.generation());
+        assertNotNull(cache.get(1));
+        cache.put(third, cache.generation());
+
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(3));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void billsReadBeforeAnInvalidationAreNotCached() {
+        BillCache cache = new BillCache(BillCache.DEFAULT_MAX_BYTES);
+        long generation = cache.generation();
+        cache.remove(7);
+
+        cache.put(new ArrayList<>(Collections.singletonList(bill(7, "March", 70))), generation);
+        assertNull(cache.get(7));
+    }
+
+    private static BillModel bill(int id, String month, double units) {
+        BillModel bill = new BillModel();
+        bill.setId(id);
+        bill.setMonth(month);
+        bill.setUnits(units);
+        bill.setTimestamp(1735689600000L + id * 60_000L);
+        return bill;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.electricitybillcalculator;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.electricitybillcalculator.core.BillTimestamps;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * The bill_summary table follows every add, update and delete on bills.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BillSummaryTest {
+
+    private static final String TEST_DATABASE = "summary_test.db";
+    private static final double DELTA = 1e-6;
+
+    private Context context;
+    private DatabaseHelper databaseHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        databaseHelper = new DatabaseHelper(context, TEST_DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        databaseHelper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void summariesFollowAddUpdateAndDelete() {
+        databaseHelper.addBill(bill("January", 100, 0, 2180, 2180));
+        databaseHelper.addBill(bill("January", 300, 4, 7700, 7392));
+        databaseHelper.addBill(bill("March", 200, 2, 4360, 4273));
+
+        ArrayList<BillSummary> monthly = databaseHelper.getMonthlySummaries();
+        assertEquals(2, monthly.size());
+        assertEquals("January", monthly.get(0).getMonth());
+        assertEquals(2, monthly.get(0).getBillCount());
+        assertEquals(400, monthly.get(0).getTotalUnits(), DELTA);
+        assertEquals(9880, monthly.get(0).getTotalChargesSen());
+        assertEquals(2, monthly.get(0).getAverageRebate(), DELTA);
+
+        // Move the March bill to January, then delete it
+        BillModel march = databaseHelper.getBillsByMonth("March").get(0);
+        march.setMonth("January");
+        databaseHelper.updateBill(march);
+        monthly = databaseHelper.getMonthlySummaries();
+        assertEquals(1, monthly.size());
+        assertEquals(3, monthly.get(0).getBillCount());
+
+        databaseHelper.deleteBill(march.getId());
+        monthly = databaseHelper.getMonthlySummaries();
+        assertEquals(2, monthly.get(0).getBillCount());
+        assertEquals(9880, monthly.get(0).getTotalChargesSen());
+
+        ArrayList<BillSummary> yearly = databaseHelper.getYearlySummaries();
+        assertEquals(1, yearly.size());
+        assertEquals(2, yearly.get(0).getBillCount());
+        assertTrue(databaseHelper.verifySummaries());
+    }
+
+    @Test
+    public void repairRebuildsDriftedSummaries() {
+        databaseHelper.addBill(bill("May", 450, 1, 15440, 15286));
+        databaseHelper.getWritableDatabase().execSQL("UPDATE bill_summary SET total_units = 0");
+
+        assertFalse(databaseHelper.verifySummaries());
+        assertTrue(databaseHelper.checkAndRepairSummaries());
+        assertTrue(databaseHelper.verifySummaries());
+        assertEquals(450, databaseHelper.getMonthlySummaries().get(0).getTotalUnits(), DELTA);
+    }
+
+    @Test
+    public void billsAreSummarizedUnderTheYearOfTheirBillingMonth() {
+        long recorded = BillTimestamps.toEpochMillis(2025, 1, 5, 10, 0, 0);
+        BillModel december = bill("December", 300, 0, 6540, 6540);
+        december.setTimestamp(recorded);
+        BillModel january = bill("January", 200, 0, 4360, 4360);
+        january.setTimestamp(recorded);
+        databaseHelper.addBill(december);
+        databaseHelper.addBill(january);
+
+        ArrayList<BillSummary> yearly = databaseHelper.getYearlySummaries();
+        assertEquals(2, yearly.size());
+        assertEquals(2024, yearly.get(0).getYear());
+        assertEquals(300, yearly.get(0).getTotalUnits(), DELTA);
+        assertEquals(2025, yearly.get(1).getYear());
+        assertEquals(200, yearly.get(1).getTotalUnits(), DELTA);
+        assertTrue(databaseHelper.verifySummaries());
+    }
+
+    private static BillModel bill(String month, double units, double rebate,
+                                  long totalChargesSen, long finalCostSen) {
+        BillModel bill = new BillModel();
+        bill.setMonth(month);
+        bill.setUnits(units);
+        bill.setRebate(rebate);
+        bill.setTotalChargesSen(totalChargesSen);
+        bill.setFinalCostSen(finalCostSen);
+        return bill;
+    }
+}
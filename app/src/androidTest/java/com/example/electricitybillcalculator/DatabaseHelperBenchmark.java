@@ -0,0 +1,158 @@
+package com.example.electricitybillcalculator;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Ops/sec of DatabaseHelper calls on the shared connection ("after"), compared with
+ * opening and closing the database around every call as the helper used to ("before").
+ * The save benchmarks write SAVE_BATCH bills per operation, each in its own transaction
+ * ("perRowCommit") or through the write-behind queue in group commits ("groupCommit").
+ * getBillById_sharedConnection evicts the bill from the BillCache before each call so it
+ * measures the query; getBillById_cached measures a cache hit.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseHelperBenchmark {
+
+    private static final String BENCHMARK_DATABASE = "benchmark.db";
+    private static final String BENCH_MONTH = "Benchmark";
+    private static final int SAVE_BATCH = 100;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+    private DatabaseHelper databaseHelper;
+    private String databasePath;
+    private int billId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(BENCHMARK_DATABASE);
+        databaseHelper = new DatabaseHelper(context, BENCHMARK_DATABASE);
+        databasePath = context.getDatabasePath(BENCHMARK_DATABASE).getPath();
+
+        databaseHelper.addBill(newBill());
+        try (Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(
+                "SELECT MAX(id) FROM bills", null)) {
+            cursor.moveToFirst();
+            billId = cursor.getInt(0);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        databaseHelper.close();
+        context.deleteDatabase(BENCHMARK_DATABASE);
+    }
+
+    @Test
+    public void getBillById_reopenPerCall() {
+        BenchmarkState state = benchmarkRule.getState();
+        String[] args = {String.valueOf(billId)};
+        while (state.keepRunning()) {
+            SQLiteDatabase db = SQLiteDatabase.openDatabase(databasePath, null,
+                    SQLiteDatabase.OPEN_READONLY);
+            Cursor cursor = db.rawQuery("SELECT * FROM bills WHERE id=?", args);
+            cursor.moveToFirst();
+            cursor.close();
+            db.close();
+        }
+    }
+
+    @Test
+    public void getBillById_sharedConnection() {
+        BenchmarkState state = benchmarkRule.getState();
+        BillCache cache = databaseHelper.getBillCache();
+        while (state.keepRunning()) {
+            // Evict the bill so every call queries the shared connection, not the cache
+            state.pauseTiming();
+            cache.remove(billId);
+            state.resumeTiming();
+            databaseHelper.getBillById(billId);
+        }
+    }
+
+    @Test
+    public void getBillById_cached() {
+        BenchmarkState state = benchmarkRule.getState();
+        databaseHelper.getBillById(billId);
+        while (state.keepRunning()) {
+            databaseHelper.getBillById(billId);
+        }
+    }
+
+    @Test
+    public void addBill_reopenPerCall() {
+        BenchmarkState state = benchmarkRule.getState();
+        BillModel bill = newBill();
+        while (state.keepRunning()) {
+            SQLiteDatabase db = SQLiteDatabase.openDatabase(databasePath, null,
+                    SQLiteDatabase.OPEN_READWRITE);
+            ContentValues values = new ContentValues();
+            values.put("month", bill.getMonth());
+            values.put("units", bill.getUnits());
+            values.put("rebate", bill.getRebate());
+            values.put("total_charges", bill.getTotalChargesSen());
+            values.put("final_cost", bill.getFinalCostSen());
+            db.insert("bills", null, values);
+            db.close();
+        }
+    }
+
+    @Test
+    public void addBill_sharedConnection() {
+        BenchmarkState state = benchmarkRule.getState();
+        BillModel bill = newBill();
+        while (state.keepRunning()) {
+            databaseHelper.addBill(bill);
+        }
+    }
+
+    @Test
+    public void saveBills_perRowCommit() {
+        BenchmarkState state = benchmarkRule.getState();
+        BillModel bill = newBill();
+        while (state.keepRunning()) {
+            for (int i = 0; i < SAVE_BATCH; i++) {
+                databaseHelper.addBill(bill);
+            }
+        }
+    }
+
+    @Test
+    public void saveBills_groupCommit() throws InterruptedException {
+        BenchmarkState state = benchmarkRule.getState();
+        BillModel bill = newBill();
+        while (state.keepRunning()) {
+            for (int i = 0; i < SAVE_BATCH; i++) {
+                databaseHelper.queueBill(bill, null);
+            }
+            databaseHelper.flushQueuedBills();
+        }
+    }
+
+    private static BillModel newBill() {
+        BillModel bill = new BillModel();
+        bill.setMonth(BENCH_MONTH);
+        bill.setUnits(450);
+        bill.setRebate(2);
+        bill.setTotalChargesSen(15440);
+        bill.setFinalCostSen(15131);
+        return bill;
+    }
+}
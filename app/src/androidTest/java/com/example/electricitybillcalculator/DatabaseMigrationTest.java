@@ -0,0 +1,200 @@
+package com.example.electricitybillcalculator;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.electricitybillcalculator.core.BillTimestamps;
+import com.example.electricitybillcalculator.core.TariffEngine;
+import com.example.electricitybillcalculator.core.TariffSchedule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Schema migrations and index usage of {@link DatabaseHelper}, on a throwaway database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMigrationTest {
+
+    private static final String TEST_DATABASE = "migration_test.db";
+    private static final int FIXTURE_ROWS = 20000;
+    // 2025-01-01 00:00:00 UTC, the first fixture timestamp
+    private static final long FIXTURE_START = 1735689600000L;
+    private static final String[] MONTHS = {"January", "February", "March", "April", "May",
+            "June", "July", "August", "September", "October", "November", "December"};
+
+    private Context context;
+    private DatabaseHelper databaseHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        if (databaseHelper != null) {
+            databaseHelper.close();
+        }
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void upgradeFromVersion1KeepsRowsAndAddsIndexes() {
+        // Database as created by the first release: bills table only
+        SQLiteDatabase v1 = context.openOrCreateDatabase(TEST_DATABASE, Context.MODE_PRIVATE, null);
+        v1.execSQL("CREATE TABLE bills(id INTEGER PRIMARY KEY AUTOINCREMENT, month TEXT,"
+                + " units REAL, rebate REAL, total_charges REAL, final_cost REAL,"
+                + " timestamp DATETIME DEFAULT CURRENT_TIMESTAMP)");
+        insertFixture(v1, 500, true);
+        v1.setVersion(1);
+        v1.close();
+
+        databaseHelper = new DatabaseHelper(context, TEST_DATABASE);
+        SQLiteDatabase db = databaseHelper.getReadableDatabase();
+
+        assertEquals(500, count(db, "SELECT COUNT(*) FROM bills"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM sqlite_master"
+                + " WHERE type='index' AND name='idx_bills_timestamp'"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM sqlite_master"
+                + " WHERE type='index' AND name='idx_bills_month'"));
+
+        // Text timestamps (UTC) become epoch milliseconds and RM amounts become whole sen
+        assertEquals(500, count(db, "SELECT COUNT(*) FROM bills WHERE typeof(timestamp) = 'integer'"
+                + " AND typeof(total_charges) = 'integer' AND typeof(final_cost) = 'integer'"));
+        BillModel first = databaseHelper.getBillsPage(null, 500).get(499);
+        assertEquals(FIXTURE_START, first.getTimestamp());
+        assertEquals(10000, first.getTotalChargesSen());
+        assertEquals(9500, first.getFinalCostSen());
+        assertTrue(databaseHelper.verifySummaries());
+
+        // The tariff that used to be built in is the one stored schedule
+        assertEquals(1, databaseHelper.getTariffCatalog().getScheduleCount());
+    }
+
+    @Test
+    public void tariffScheduleAppliesFromItsEffectiveMonth() {
+        databaseHelper = new DatabaseHelper(context, TEST_DATABASE);
+        insertFixture(databaseHelper.getWritableDatabase(), 120, false);
+
+        double[] doubled = TariffEngine.domestic().getRatesSen();
+        for (int i = 0; i < doubled.length; i++) {
+            doubled[i] *= 2;
+        }
+        TariffSchedule july2024 = new TariffSchedule("TNB", "Domestic July 2024",
+                BillTimestamps.toEpochMillis(2024, 7, 1, 0, 0, 0),
+                TariffEngine.domestic().getLimits(), doubled);
+        assertTrue(databaseHelper.addTariffSchedule(july2024));
+        assertFalse(databaseHelper.addTariffSchedule(new TariffSchedule("TNB", "Broken", 0,
+                new int[]{300, 200}, new double[]{10, 20})));
+        assertEquals(2, databaseHelper.getTariffCatalog().getScheduleCount());
+
+        assertEquals(120, databaseHelper.rerateAll(databaseHelper.getTariffCatalog()).getRows());
+
+        // Fixture bills are read in January 2025, so a March bill is for March 2024 and a
+        // July bill for July 2024
+        BillModel march = databaseHelper.getBillsByMonth("March").get(0);
+        assertEquals(TariffEngine.domestic().calculateChargesSen(march.getUnits()),
+                march.getTotalChargesSen());
+        BillModel july = databaseHelper.getBillsByMonth("July").get(0);
+        assertEquals(july2024.compile().calculateChargesSen(july.getUnits()),
+                july.getTotalChargesSen());
+        assertTrue(databaseHelper.verifySummaries());
+    }
+
+    @Test
+    public void historyPageUsesTimestampIndex() {
+        SQLiteDatabase db = openWithFixture();
+
+        String plan = queryPlan(db, "SELECT * FROM bills"
+                + " WHERE timestamp < ? OR (timestamp = ? AND id < ?)"
+                + " ORDER BY timestamp DESC, id DESC LIMIT 30",
+                String.valueOf(FIXTURE_START), String.valueOf(FIXTURE_START), "100");
+        assertTrue(plan, plan.contains("INDEX idx_bills_timestamp"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+
+        String firstPage = queryPlan(db, "SELECT * FROM bills ORDER BY timestamp DESC, id DESC LIMIT 30");
+        assertTrue(firstPage, firstPage.contains("INDEX idx_bills_timestamp"));
+        assertFalse(firstPage, firstPage.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void monthQueryUsesMonthIndex() {
+        SQLiteDatabase db = openWithFixture();
+
+        String plan = queryPlan(db, "SELECT * FROM bills WHERE month=? ORDER BY timestamp DESC", "March");
+        assertTrue(plan, plan.contains("INDEX idx_bills_month"));
+        assertEquals(FIXTURE_ROWS / MONTHS.length, databaseHelper.getBillsByMonth("March").size(), 1);
+    }
+
+    private SQLiteDatabase openWithFixture() {
+        databaseHelper = new DatabaseHelper(context, TEST_DATABASE);
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        insertFixture(db, FIXTURE_ROWS, false);
+        db.execSQL("ANALYZE");
+        return db;
+    }
+
+    // Rows as the current schema stores them, or as version 1 did: amounts in RM and
+    // timestamps as CURRENT_TIMESTAMP style UTC text
+    private static void insertFixture(SQLiteDatabase db, int rows, boolean version1) {
+        SQLiteStatement insert = db.compileStatement("INSERT INTO bills"
+                + "(month, units, rebate, total_charges, final_cost, timestamp) VALUES (?,?,?,?,?,?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < rows; i++) {
+                insert.bindString(1, MONTHS[i % MONTHS.length]);
+                insert.bindDouble(2, 1 + i % 1000);
+                insert.bindDouble(3, i % 6);
+                if (version1) {
+                    insert.bindDouble(4, 100.0);
+                    insert.bindDouble(5, 95.0);
+                } else {
+                    insert.bindLong(4, 10000);
+                    insert.bindLong(5, 9500);
+                }
+                // Timestamps repeat across the fixture, so the id tie-break matters
+                long minutes = i / 10;
+                if (version1) {
+                    insert.bindString(6, String.format(java.util.Locale.US,
+                            "2025-01-%02d %02d:%02d:00", 1 + minutes / 1440, minutes / 60 % 24, minutes % 60));
+                } else {
+                    insert.bindLong(6, FIXTURE_START + minutes * 60_000L);
+                }
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    private static String queryPlan(SQLiteDatabase db, String sql, String... args) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static long count(SQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.rawQuery(sql, null)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        }
+    }
+}
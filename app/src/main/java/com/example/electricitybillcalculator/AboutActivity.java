@@ -7,11 +7,16 @@ import android.view.View;
 import android.widget.Button;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import com.example.electricitybillcalculator.core.LatencyHistogram;
+import com.example.electricitybillcalculator.core.Metrics;
 
 public class AboutActivity extends AppCompatActivity {
 
+    private static final LatencyHistogram ON_CREATE = Metrics.histogram("AboutActivity.onCreate");
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        long metricsStart = Metrics.start();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_about);
 
@@ -31,5 +36,6 @@ public class AboutActivity extends AppCompatActivity {
             intent.setData(Uri.parse(url));
             startActivity(intent);
         });
+        Metrics.stop(ON_CREATE, metricsStart);
     }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.example.electricitybillcalculator;
+
+import android.util.LruCache;
+import com.example.electricitybillcalculator.core.Metrics;
+import java.util.List;
+
+/**
+ * Bills recently read from the database, keyed by id, least recently used evicted first.
+ *
+ * <p>The cache is bounded by the estimated memory its bills take rather than by their
+ * number. It holds copies: a bill handed out can be edited freely without changing what
+ * is cached. Writers call {@link #remove(int)} or {@link #clear()} after changing rows;
+ * readers take a {@link #generation()} before querying and pass it to {@link #put}, which
+ * drops bills read before an invalidation so a stale row is never cached. Hits, misses and
+ * evictions are also counted in {@link Metrics}. Thread-safe.
+ */
+public class BillCache {
+
+    // Bills of a few history pages
+    public static final int DEFAULT_MAX_BYTES = 256 * 1024;
+
+    // Bill object, boxed key and LRU map entry, excluding the month text
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private static final Metrics.Counter HITS = Metrics.counter("cache.hits");
+    private static final Metrics.Counter MISSES = Metrics.counter("cache.misses");
+    private static final Metrics.Counter EVICTIONS = Metrics.counter("cache.evictions");
+
+    private final LruCache<Integer, BillModel> bills;
+    private long generation;
+
+    public BillCache(int maxBytes) {
+        bills = new LruCache<Integer, BillModel>(maxBytes) {
+            @Override
+            protected int sizeOf(Integer id, BillModel bill) {
+                return estimateBytes(bill);
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Integer id, BillModel oldBill, BillModel newBill) {
+                if (evicted) {
+                    EVICTIONS.increment();
+                }
+            }
+        };
+    }
+
+    // Rough heap footprint of one cached bill
+    static int estimateBytes(BillModel bill) {
+        String month = bill.getMonth();
+        return ENTRY_OVERHEAD_BYTES + (month != null ? 2 * month.length() : 0);
+    }
+
+    // Copy of the cached bill, or null if it is not cached
+    public BillModel get(int id) {
+        BillModel bill = bills.get(id);
+        (bill != null ? HITS : MISSES).increment();
+        return bill != null ? new BillModel(bill) : null;
+    }
+
+    // Value to pass to put for bills about to be read
+    public synchronized long generation() {
+        return generation;
+    }
+
+    // Cache copies of bills read since the given generation, unless the cache has been
+    // invalidated in the meantime
+    public synchronized void put(List<BillModel> read, long readGeneration) {
+        if (readGeneration != generation) {
+            return;
+        }
+        for (BillModel bill : read) {
+            bills.put(bill.getId(), new BillModel(bill));
+        }
+    }
+
+    public synchronized void put(BillModel read, long readGeneration) {
+        if (readGeneration == generation) {
+            bills.put(read.getId(), new BillModel(read));
+        }
+    }
+
+    // Forget one bill after it has been changed or deleted
+    public synchronized void remove(int id) {
+        generation++;
+        bills.remove(id);
+    }
+
+    // Forget every bill after a change to many rows
+    public synchronized void clear() {
+        generation++;
+        // Removed one by one: evictAll would count them as evictions
+        for (Integer id : bills.snapshot().keySet()) {
+            bills.remove(id);
+        }
+    }
+
+    /** Lookups answered from the cache. */
+    public int getHits() {
+        return bills.hitCount();
+    }
+
+    /** Lookups that had to go to the database. */
+    public int getMisses() {
+        return bills.missCount();
+    }
+
+    /** Bills dropped to stay within the size limit. */
+    public int getEvictions() {
+        return bills.evictionCount();
+    }
+
+    /** Estimated bytes held, at most the limit given to the constructor. */
+    public int getSizeBytes() {
+        return bills.size();
+    }
+
+    @Override
+    public String toString() {
+        return getHits() + " hits, " + getMisses() + " misses, " + getEvictions() + " evictions, "
+                + getSizeBytes() + " bytes";
+    }
+}
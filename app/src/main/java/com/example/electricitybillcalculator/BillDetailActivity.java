@@ -16,15 +16,26 @@ import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import com.example.electricitybillcalculator.core.BillTimestamps;
+import com.example.electricitybillcalculator.core.LatencyHistogram;
+import com.example.electricitybillcalculator.core.Metrics;
+import com.example.electricitybillcalculator.core.MoneyFormatter;
+import com.example.electricitybillcalculator.core.TariffCatalog;
+import com.example.electricitybillcalculator.core.TariffEngine;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
-import java.text.DecimalFormat;
 
 public class BillDetailActivity extends AppCompatActivity {
 
+    private static final LatencyHistogram ON_CREATE = Metrics.histogram("BillDetailActivity.onCreate");
+    private static final LatencyHistogram TARIFF_RATE = Metrics.histogram("tariff.rate");
+
+    // Typing pause after which the units are recalculated
+    private static final long RECALCULATE_DELAY_MS = 150;
+
     private int billId;
     private BillModel bill;
-    private DatabaseHelper databaseHelper;
+    private BillRepository billRepository;
 
     private AutoCompleteTextView monthSpinner;
     private TextInputEditText unitsEditText;
@@ -36,10 +47,21 @@ public class BillDetailActivity extends AppCompatActivity {
     private String selectedMonth = "";
     private double selectedRebate = 0;
 
+    // Tariff schedules; the built-in tariff until the stored ones have loaded
+    private TariffCatalog tariffs = TariffCatalog.builtIn();
+
+    // One per amount view, reused on every keystroke
+    private final MoneyFormatter totalChargesFormatter = new MoneyFormatter();
+    private final MoneyFormatter finalCostFormatter = new MoneyFormatter();
+
+    private final RecalculationPipeline recalculation = new RecalculationPipeline(
+            RECALCULATE_DELAY_MS, this::parseUnits, () -> selectedRebate, this::calculateAndUpdate);
+
     private Toolbar toolbar;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        long metricsStart = Metrics.start();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_bill_detail);
 
@@ -52,15 +74,7 @@ public class BillDetailActivity extends AppCompatActivity {
         }
 
         // Initialize database
-        databaseHelper = new DatabaseHelper(this);
-
-        // Load bill
-        bill = databaseHelper.getBillById(billId);
-        if (bill == null) {
-            Toast.makeText(this, "Bill not found", Toast.LENGTH_SHORT).show();
-            finish();
-            return;
-        }
+        billRepository = BillRepository.getInstance(this);
 
         // Setup toolbar
         toolbar = findViewById(R.id.toolbar);  // Use the class-level variable
@@ -71,11 +85,32 @@ public class BillDetailActivity extends AppCompatActivity {
         // Initialize views
         initializeViews();
 
-        // Populate data
-        populateData();
+        // Charges already recalculated with the built-in schedules may be wrong for this
+        // bill's period, so redo them once the stored ones arrive. Until the user edits the
+        // bill, its stored charges are shown as they are, whichever load finishes first.
+        billRepository.getTariffCatalog(this, catalog -> {
+            tariffs = catalog;
+            if (recalculation.getCalculations() > 0) {
+                recalculation.recalculate();
+            }
+        });
+
+        // Load bill in the background, then populate data and setup listeners
+        billRepository.getBillById(this, billId, loaded -> {
+            if (loaded == null) {
+                Toast.makeText(this, "Bill not found", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            bill = loaded;
 
-        // Setup listeners
-        setupListeners();
+            // Populate data
+            populateData();
+
+            // Setup listeners
+            setupListeners();
+        });
+        Metrics.stop(ON_CREATE, metricsStart);
     }
 
     private void initializeViews() {
@@ -111,12 +146,17 @@ public class BillDetailActivity extends AppCompatActivity {
         rebateRadioGroup.check(radioId);
 
         // Set date
-        textViewDate.setText(bill.getTimestamp());
+        textViewDate.setText(BillTimestamps.formatDateTime(bill.getTimestamp()));
 
         // Set calculated values
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-        textViewTotalCharges.setText("RM " + df.format(bill.getTotalCharges()));
-        textViewFinalCost.setText("RM " + df.format(bill.getFinalCost()));
+        showAmount(textViewTotalCharges, totalChargesFormatter, bill.getTotalChargesSen());
+        showAmount(textViewFinalCost, finalCostFormatter, bill.getFinalCostSen());
+    }
+
+    // Show an amount through the view's own formatter, which TextView reads from directly
+    private static void showAmount(TextView view, MoneyFormatter formatter, long sen) {
+        int length = formatter.format(sen);
+        view.setText(formatter.getChars(), 0, length);
     }
 
     private int getRebateRadioId(double rebate) {
@@ -135,6 +175,10 @@ public class BillDetailActivity extends AppCompatActivity {
             String[] months = {"January", "February", "March", "April", "May", "June",
                     "July", "August", "September", "October", "November", "December"};
             selectedMonth = months[position];
+            // The month decides which tariff schedule applies, so recalculate even if the
+            // units and rebate are the same
+            recalculation.invalidate();
+            recalculation.onInputCommitted();
         });
 
         // Rebate selection
@@ -152,7 +196,7 @@ public class BillDetailActivity extends AppCompatActivity {
             } else if (checkedId == R.id.rebate5) {
                 selectedRebate = 5;
             }
-            calculateAndUpdate();
+            recalculation.onInputCommitted();
         });
 
         // Units input
@@ -165,9 +209,7 @@ public class BillDetailActivity extends AppCompatActivity {
 
             @Override
             public void afterTextChanged(Editable s) {
-                if (validateUnits()) {
-                    calculateAndUpdate();
-                }
+                recalculation.onInputChanged();
             }
         });
 
@@ -184,96 +226,85 @@ public class BillDetailActivity extends AppCompatActivity {
     }
 
     private boolean validateUnits() {
+        return !Double.isNaN(parseUnits());
+    }
+
+    // Units entered, or NaN (with the error shown) if they are missing or out of range
+    private double parseUnits() {
         String unitsStr = unitsEditText.getText().toString().trim();
         if (unitsStr.isEmpty()) {
             unitsInputLayout.setError("Please enter units");
-            return false;
+            return Double.NaN;
         }
 
+        double units;
         try {
-            double units = Double.parseDouble(unitsStr);
-            if (units < 1 || units > 1000) {
-                unitsInputLayout.setError("Units must be 1-1000 kWh");
-                return false;
-            }
+            units = Double.parseDouble(unitsStr);
         } catch (NumberFormatException e) {
             unitsInputLayout.setError("Invalid number");
-            return false;
+            return Double.NaN;
+        }
+        if (!(units >= 1 && units <= 1000)) {
+            unitsInputLayout.setError("Units must be 1-1000 kWh");
+            return Double.NaN;
         }
 
         unitsInputLayout.setError(null);
-        return true;
+        return units;
     }
 
-    private void calculateAndUpdate() {
-        if (!validateUnits()) {
+    // Called by the recalculation pipeline with inputs that are valid and have changed
+    private void calculateAndUpdate(double units, double rebate) {
+        // Calculate charges with the schedule in effect for the bill's month
+        long metricsStart = Metrics.start();
+        TariffEngine tariff = tariffs.engineForBill(TariffCatalog.DEFAULT_UTILITY,
+                selectedMonth, bill.getTimestamp());
+        if (tariff == null) {
+            Toast.makeText(this, "No tariff for " + selectedMonth, Toast.LENGTH_SHORT).show();
+            recalculation.invalidate();
             return;
         }
-
-        try {
-            double units = Double.parseDouble(unitsEditText.getText().toString().trim());
-
-            // Calculate charges
-            double totalCharges = calculateCharges(units);
-            double finalCost = totalCharges - (totalCharges * selectedRebate / 100);
-
-            // Update display
-            DecimalFormat df = new DecimalFormat("#,##0.00");
-            textViewTotalCharges.setText("RM " + df.format(totalCharges));
-            textViewFinalCost.setText("RM " + df.format(finalCost));
-
-            // Update bill object
-            bill.setMonth(selectedMonth);
-            bill.setUnits(units);
-            bill.setRebate(selectedRebate);
-            bill.setTotalCharges(totalCharges);
-            bill.setFinalCost(finalCost);
-
-        } catch (NumberFormatException e) {
-            // Ignore for now
-        }
+        long totalChargesSen = tariff.calculateChargesSen(units);
+        long finalCostSen = tariff.applyRebate(totalChargesSen, rebate);
+        Metrics.stop(TARIFF_RATE, metricsStart);
+
+        // Update display
+        showAmount(textViewTotalCharges, totalChargesFormatter, totalChargesSen);
+        showAmount(textViewFinalCost, finalCostFormatter, finalCostSen);
+
+        // Update bill object
+        bill.setMonth(selectedMonth);
+        bill.setUnits(units);
+        bill.setRebate(rebate);
+        bill.setTotalChargesSen(totalChargesSen);
+        bill.setFinalCostSen(finalCostSen);
     }
 
-    private double calculateCharges(double units) {
-        double charges = 0;
-        double RATE_1 = 21.8, RATE_2 = 33.4, RATE_3 = 51.6, RATE_4 = 54.6;
-
-        if (units > 600) {
-            double block4 = Math.min(units - 600, 300);
-            charges += block4 * RATE_4 / 100;
-            units -= block4;
-        }
-
-        if (units > 300) {
-            double block3 = Math.min(units - 300, 300);
-            charges += block3 * RATE_3 / 100;
-            units -= block3;
-        }
-
-        if (units > 200) {
-            double block2 = Math.min(units - 200, 100);
-            charges += block2 * RATE_2 / 100;
-            units -= block2;
-        }
-
-        charges += units * RATE_1 / 100;
-
-        return charges;
+    @Override
+    protected void onDestroy() {
+        recalculation.cancel();
+        super.onDestroy();
     }
 
     private void updateBill() {
+        // Apply what was typed last, even if the typing pause has not passed yet
+        recalculation.flush();
         if (!validateUnits() || selectedMonth.isEmpty()) {
             Toast.makeText(this, "Please fill all fields", Toast.LENGTH_SHORT).show();
             return;
         }
-
-        if (databaseHelper.updateBill(bill)) {
-            Toast.makeText(this, "Bill updated successfully", Toast.LENGTH_SHORT).show();
-            setResult(RESULT_OK);
-            finish();
-        } else {
-            Toast.makeText(this, "Failed to update bill", Toast.LENGTH_SHORT).show();
-        }
+        // The month is not an input to the calculation, so a skipped recalculation would miss it
+        bill.setMonth(selectedMonth);
+
+        billRepository.updateBill(this, bill, updated -> {
+            if (updated) {
+                Toast.makeText(this, "Bill updated successfully", Toast.LENGTH_SHORT).show();
+                setResult(RESULT_OK);
+                finish();
+            } else {
+                Toast.makeText(this, "Failed to update bill", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void deleteBill() {
@@ -281,21 +312,17 @@ public class BillDetailActivity extends AppCompatActivity {
                 .setTitle("Delete Bill")
                 .setMessage("Are you sure you want to delete this bill?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    if (databaseHelper.deleteBill(billId)) {
-                        Toast.makeText(this, "Bill deleted", Toast.LENGTH_SHORT).show();
-                        setResult(RESULT_OK);
-                        finish();
-                    } else {
-                        Toast.makeText(this, "Failed to delete bill", Toast.LENGTH_SHORT).show();
-                    }
+                    billRepository.deleteBill(this, billId, deleted -> {
+                        if (deleted) {
+                            Toast.makeText(this, "Bill deleted", Toast.LENGTH_SHORT).show();
+                            setResult(RESULT_OK);
+                            finish();
+                        } else {
+                            Toast.makeText(this, "Failed to delete bill", Toast.LENGTH_SHORT).show();
+                        }
+                    });
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
     }
-
-    @Override
-    protected void onDestroy() {
-        databaseHelper.close();
-        super.onDestroy();
-    }
 }
\ No newline at end of file
@@ -1,28 +1,50 @@
 package com.example.electricitybillcalculator;
 
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import com.example.electricitybillcalculator.core.BillExportWriter;
+import com.example.electricitybillcalculator.core.LatencyHistogram;
+import com.example.electricitybillcalculator.core.Metrics;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import java.io.File;
 import java.util.ArrayList;
 
 public class BillListActivity extends AppCompatActivity {
 
-    private ListView billListView;
+    private static final LatencyHistogram ON_CREATE = Metrics.histogram("BillListActivity.onCreate");
+
+    private RecyclerView billRecyclerView;
     private TextView emptyTextView;
     private FloatingActionButton fabBack;
-    private DatabaseHelper databaseHelper;
-    private ArrayList<BillModel> billList;
+    private BillRepository billRepository;
     private BillListAdapter adapter;
+    private BillPageLoader pageLoader;
+    private boolean loadingPage;
+
+    private ActivityResultLauncher<Intent> detailLauncher;
+    private ActivityResultLauncher<String[]> importLauncher;
+    private ActivityResultLauncher<String[]> importIntervalsLauncher;
+    private ActivityResultLauncher<String> exportCsvLauncher;
+    private ActivityResultLauncher<String> exportJsonLauncher;
+
+    // Start loading the next page when this many rows are left below the screen
+    private static final int PREFETCH_DISTANCE = 10;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        long metricsStart = Metrics.start();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_bill_list);
 
@@ -38,57 +60,217 @@ public class BillListActivity extends AppCompatActivity {
         toolbar.setNavigationOnClickListener(v -> finish());
 
         // Initialize database
-        databaseHelper = new DatabaseHelper(this);
+        billRepository = BillRepository.getInstance(this);
 
         // Initialize views
-        billListView = findViewById(R.id.billListView);
+        billRecyclerView = findViewById(R.id.billRecyclerView);
         emptyTextView = findViewById(R.id.emptyTextView);
         fabBack = findViewById(R.id.fabBack);
 
-        // Load bills
-        loadBills();
+        // Setup paged list
+        adapter = new BillListAdapter(this::openBillDetail);
+        billRecyclerView.setAdapter(adapter);
 
-        // Setup list view click listener
-        billListView.setOnItemClickListener((parent, view, position, id) -> {
-            BillModel bill = billList.get(position);
-            openBillDetail(bill);
+        // Load next page as the list nears its end
+        billRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                int totalItemCount = adapter.getItemCount();
+                if (layoutManager != null && totalItemCount > 0
+                        && layoutManager.findLastVisibleItemPosition() >= totalItemCount - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
         });
 
+        // Refresh only when the detail screen changed or deleted the bill
+        detailLauncher = registerForActivityResult(
+                new ActivityResultContracts.StartActivityForResult(),
+                result -> {
+                    if (result.getResultCode() == RESULT_OK) {
+                        loadBills();
+                    }
+                });
+
         // Setup FAB click listener
         fabBack.setOnClickListener(v -> finish());
-    }
 
-    private void loadBills() {
-        billList = databaseHelper.getAllBills();
-
-        if (billList.isEmpty()) {
-            emptyTextView.setVisibility(View.VISIBLE);
-            billListView.setVisibility(View.GONE);
-            emptyTextView.setText("No bills saved yet.\n\nCalculate and save your first bill!");
-        } else {
-            emptyTextView.setVisibility(View.GONE);
-            billListView.setVisibility(View.VISIBLE);
-
-            adapter = new BillListAdapter(this, billList);
-            billListView.setAdapter(adapter);
-        }
+        // Pick a CSV file to import
+        importLauncher = registerForActivityResult(new ActivityResultContracts.OpenDocument(),
+                uri -> {
+                    if (uri != null) {
+                        importBills(uri);
+                    }
+                });
+
+        // Pick a CSV file of interval readings to import
+        importIntervalsLauncher = registerForActivityResult(new ActivityResultContracts.OpenDocument(),
+                uri -> {
+                    if (uri != null) {
+                        importIntervals(uri);
+                    }
+                });
+
+        // Pick where to save an export
+        exportCsvLauncher = registerExportLauncher(BillExportWriter.Format.CSV);
+        exportJsonLauncher = registerExportLauncher(BillExportWriter.Format.JSON_LINES);
+
+        // Load bills
+        loadBills();
+        Metrics.stop(ON_CREATE, metricsStart);
     }
 
-    private void openBillDetail(BillModel bill) {
-        Intent intent = new Intent(this, BillDetailActivity.class);
-        intent.putExtra("BILL_ID", bill.getId());
-        startActivity(intent);
+    private ActivityResultLauncher<String> registerExportLauncher(BillExportWriter.Format format) {
+        return registerForActivityResult(
+                new ActivityResultContracts.CreateDocument(format.getMimeType()),
+                uri -> {
+                    if (uri != null) {
+                        exportBills(uri, format);
+                    }
+                });
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        loadBills(); // Refresh list when returning to activity
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_bill_list, menu);
+        return true;
     }
 
     @Override
-    protected void onDestroy() {
-        databaseHelper.close();
-        super.onDestroy();
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_import) {
+            importLauncher.launch(new String[]{"text/csv", "text/comma-separated-values", "text/plain"});
+            return true;
+        } else if (item.getItemId() == R.id.action_import_intervals) {
+            importIntervalsLauncher.launch(new String[]{"text/csv", "text/comma-separated-values", "text/plain"});
+            return true;
+        } else if (item.getItemId() == R.id.action_export_csv) {
+            exportCsvLauncher.launch("bills." + BillExportWriter.Format.CSV.getExtension());
+            return true;
+        } else if (item.getItemId() == R.id.action_export_json) {
+            exportJsonLauncher.launch("bills." + BillExportWriter.Format.JSON_LINES.getExtension());
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void importBills(Uri uri) {
+        Toast.makeText(this, "Importing bills...", Toast.LENGTH_SHORT).show();
+        billRepository.importBills(this, uri,
+                (rowsRead, rowsImported) -> {
+                    if (getSupportActionBar() != null) {
+                        getSupportActionBar().setSubtitle("Imported " + rowsImported + " of " + rowsRead);
+                    }
+                },
+                result -> {
+                    if (getSupportActionBar() != null) {
+                        getSupportActionBar().setSubtitle(null);
+                    }
+                    if (result == null) {
+                        Toast.makeText(this, "Failed to import file", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+
+                    String message = result.getImported() + " bills imported";
+                    if (result.getRejected() > 0) {
+                        message += ", " + result.getRejected() + " rows rejected\n"
+                                + result.getErrors().get(0);
+                    }
+                    Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+                    loadBills();
+                });
+    }
+
+    private void importIntervals(Uri uri) {
+        Toast.makeText(this, "Importing interval data...", Toast.LENGTH_SHORT).show();
+        billRepository.importIntervals(this, uri, new File(getFilesDir(), "intervals.bin"),
+                (rowsRead, rowsImported) -> {
+                    if (getSupportActionBar() != null) {
+                        getSupportActionBar().setSubtitle("Stored " + rowsImported + " of " + rowsRead);
+                    }
+                },
+                result -> {
+                    if (getSupportActionBar() != null) {
+                        getSupportActionBar().setSubtitle(null);
+                    }
+                    if (result == null) {
+                        Toast.makeText(this, "Failed to import interval data", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+
+                    String message = result.getImported() + " intervals stored, "
+                            + result.getBillsAdded() + " monthly bills added";
+                    if (result.getRejected() > 0) {
+                        message += ", " + result.getRejected() + " rows rejected\n"
+                                + result.getErrors().get(0);
+                    }
+                    Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+                    loadBills();
+                });
+    }
+
+    // Reload from the newest bill, covering at least the rows already shown. The new list
+    // is diffed against the current one off the main thread, so unchanged rows stay as they are.
+    private void loadBills() {
+        // A fresh loader supersedes any page still loading for the previous one
+        BillPageLoader loader = billRepository.newPageLoader(BillPageLoader.DEFAULT_PAGE_SIZE);
+        pageLoader = loader;
+        loadingPage = true;
+
+        billRepository.loadFirstPage(this, loader, adapter.getItemCount(), page -> {
+            if (loader != pageLoader) {
+                return;
+            }
+            loadingPage = false;
+
+            adapter.submitList(page);
+
+            if (page.isEmpty()) {
+                emptyTextView.setVisibility(View.VISIBLE);
+                billRecyclerView.setVisibility(View.GONE);
+                emptyTextView.setText("No bills saved yet.\n\nCalculate and save your first bill!");
+            } else {
+                emptyTextView.setVisibility(View.GONE);
+                billRecyclerView.setVisibility(View.VISIBLE);
+            }
+        });
+    }
+
+    private void loadNextPage() {
+        if (pageLoader == null || loadingPage || !pageLoader.hasMore()) {
+            return;
+        }
+
+        BillPageLoader loader = pageLoader;
+        loadingPage = true;
+        billRepository.loadNextPage(this, loader, page -> {
+            if (loader != pageLoader) {
+                return;
+            }
+            loadingPage = false;
+
+            if (!page.isEmpty()) {
+                ArrayList<BillListItem> items = new ArrayList<>(adapter.getCurrentList());
+                items.addAll(page);
+                adapter.submitList(items);
+            }
+        });
+    }
+
+    private void exportBills(Uri uri, BillExportWriter.Format format) {
+        billRepository.exportBills(this, uri, format, rows -> {
+            if (rows == null) {
+                Toast.makeText(this, "Failed to export bills", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, rows + " bills exported", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void openBillDetail(BillModel bill) {
+        Intent intent = new Intent(this, BillDetailActivity.class);
+        intent.putExtra("BILL_ID", bill.getId());
+        detailLauncher.launch(intent);
     }
 }
\ No newline at end of file
@@ -1,64 +1,99 @@
 package com.example.electricitybillcalculator;
 
-import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
-import java.text.DecimalFormat;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.Locale;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+import com.example.electricitybillcalculator.core.LatencyHistogram;
+import com.example.electricitybillcalculator.core.Metrics;
 
-public class BillListAdapter extends ArrayAdapter<BillModel> {
+/**
+ * History list adapter. New lists are diffed against the current one on a background
+ * thread, and only rows that were added, removed or changed are rebound.
+ */
+public class BillListAdapter extends ListAdapter<BillListItem, BillListAdapter.ViewHolder> {
 
-    private Context context;
-    private ArrayList<BillModel> billList;
-    private DecimalFormat df = new DecimalFormat("#,##0.00");
+    public interface OnBillClickListener {
+        void onBillClick(BillModel bill);
+    }
+
+    private static final LatencyHistogram BIND = Metrics.histogram("list.bind");
+
+    private static final DiffUtil.ItemCallback<BillListItem> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<BillListItem>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull BillListItem oldItem, @NonNull BillListItem newItem) {
+                    return oldItem.getId() == newItem.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull BillListItem oldItem, @NonNull BillListItem newItem) {
+                    return oldItem.equals(newItem);
+                }
+            };
+
+    private final OnBillClickListener listener;
+
+    public BillListAdapter(OnBillClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+        setHasStableIds(true);
+    }
 
-    public BillListAdapter(Context context, ArrayList<BillModel> billList) {
-        super(context, R.layout.list_item_bill, billList);
-        this.context = context;
-        this.billList = billList;
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     @NonNull
     @Override
-    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
-        if (convertView == null) {
-            convertView = LayoutInflater.from(context).inflate(R.layout.list_item_bill, parent, false);
-        }
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.list_item_bill, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                listener.onBillClick(getItem(position).getBill());
+            }
+        });
+        return holder;
+    }
 
-        BillModel bill = billList.get(position);
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        long metricsStart = Metrics.start();
+        BillListItem item = getItem(position);
 
-        TextView textViewMonth = convertView.findViewById(R.id.textViewMonth);
-        TextView textViewDate = convertView.findViewById(R.id.textViewDate);
-        TextView textViewUnits = convertView.findViewById(R.id.textViewUnits);
-        TextView textViewRebate = convertView.findViewById(R.id.textViewRebate);
-        TextView textViewTotalCharges = convertView.findViewById(R.id.textViewTotalCharges);
-        TextView textViewFinalCost = convertView.findViewById(R.id.textViewFinalCost);
+        holder.textViewMonth.setText(item.getMonth());
+        holder.textViewDate.setText(item.getDate());
+        holder.textViewUnits.setText(item.getUnits());
+        holder.textViewRebate.setText(item.getRebate());
+        holder.textViewTotalCharges.setText(item.getTotalCharges());
+        holder.textViewFinalCost.setText(item.getFinalCost());
+        Metrics.stop(BIND, metricsStart);
+    }
 
-        textViewMonth.setText(bill.getMonth());
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView textViewMonth;
+        final TextView textViewDate;
+        final TextView textViewUnits;
+        final TextView textViewRebate;
+        final TextView textViewTotalCharges;
+        final TextView textViewFinalCost;
 
-        // Format timestamp
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            Date date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
-                    .parse(bill.getTimestamp());
-            textViewDate.setText(sdf.format(date));
-        } catch (Exception e) {
-            textViewDate.setText(bill.getTimestamp());
+        ViewHolder(View itemView) {
+            super(itemView);
+            textViewMonth = itemView.findViewById(R.id.textViewMonth);
+            textViewDate = itemView.findViewById(R.id.textViewDate);
+            textViewUnits = itemView.findViewById(R.id.textViewUnits);
+            textViewRebate = itemView.findViewById(R.id.textViewRebate);
+            textViewTotalCharges = itemView.findViewById(R.id.textViewTotalCharges);
+            textViewFinalCost = itemView.findViewById(R.id.textViewFinalCost);
         }
-
-        textViewUnits.setText(bill.getUnits() + " kWh");
-        textViewRebate.setText(bill.getRebate() + "%");
-        textViewTotalCharges.setText("RM " + df.format(bill.getTotalCharges()));
-        textViewFinalCost.setText("RM " + df.format(bill.getFinalCost()));
-
-        return convertView;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.example.electricitybillcalculator;
+
+import com.example.electricitybillcalculator.core.BillTimestamps;
+import com.example.electricitybillcalculator.core.MoneyFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A bill together with the text shown for it in the history list. The text is formatted
+ * once, off the main thread, so binding a row only sets precomputed strings.
+ */
+public class BillListItem {
+    private final BillModel bill;
+    private final String month;
+    private final String date;
+    private final String units;
+    private final String rebate;
+    private final String totalCharges;
+    private final String finalCost;
+
+    private BillListItem(BillModel bill, StringBuilder text) {
+        this.bill = bill;
+        this.month = bill.getMonth();
+        this.date = BillTimestamps.formatDate(bill.getTimestamp());
+        this.units = bill.getUnits() + " kWh";
+        this.rebate = bill.getRebate() + "%";
+        this.totalCharges = amount(text, bill.getTotalChargesSen());
+        this.finalCost = amount(text, bill.getFinalCostSen());
+    }
+
+    private static String amount(StringBuilder text, long sen) {
+        text.setLength(0);
+        return MoneyFormatter.append(text, sen).toString();
+    }
+
+    // Format a page of bills, sharing one text buffer across the page
+    public static ArrayList<BillListItem> fromBills(List<BillModel> bills) {
+        ArrayList<BillListItem> items = new ArrayList<>(bills.size());
+        StringBuilder text = new StringBuilder();
+
+        for (BillModel bill : bills) {
+            items.add(new BillListItem(bill, text));
+        }
+        return items;
+    }
+
+    public BillModel getBill() {
+        return bill;
+    }
+
+    public int getId() {
+        return bill.getId();
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getUnits() {
+        return units;
+    }
+
+    public String getRebate() {
+        return rebate;
+    }
+
+    public String getTotalCharges() {
+        return totalCharges;
+    }
+
+    public String getFinalCost() {
+        return finalCost;
+    }
+
+    // Two items are equal when their rows would look the same
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BillListItem)) {
+            return false;
+        }
+        BillListItem other = (BillListItem) o;
+        return getId() == other.getId()
+                && Objects.equals(month, other.month)
+                && Objects.equals(date, other.date)
+                && units.equals(other.units)
+                && rebate.equals(other.rebate)
+                && totalCharges.equals(other.totalCharges)
+                && finalCost.equals(other.finalCost);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getId(), month, date, units, rebate, totalCharges, finalCost);
+    }
+}
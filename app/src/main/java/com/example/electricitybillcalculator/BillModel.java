@@ -5,19 +5,19 @@ public class BillModel {
     private String month;
     private double units;
     private double rebate;
-    private double totalCharges;
-    private double finalCost;
-    private String timestamp;
+    private long totalChargesSen;
+    private long finalCostSen;
+    private long timestamp;
 
     // Constructor
     public BillModel(int id, String month, double units, double rebate,
-                     double totalCharges, double finalCost, String timestamp) {
+                     long totalChargesSen, long finalCostSen, long timestamp) {
         this.id = id;
         this.month = month;
         this.units = units;
         this.rebate = rebate;
-        this.totalCharges = totalCharges;
-        this.finalCost = finalCost;
+        this.totalChargesSen = totalChargesSen;
+        this.finalCostSen = finalCostSen;
         this.timestamp = timestamp;
     }
 
@@ -25,6 +25,12 @@ public class BillModel {
     public BillModel() {
     }
 
+    // Copy constructor
+    public BillModel(BillModel other) {
+        this(other.id, other.month, other.units, other.rebate,
+                other.totalChargesSen, other.finalCostSen, other.timestamp);
+    }
+
     // Getters and Setters
     public int getId() {
         return id;
@@ -58,27 +64,29 @@ public class BillModel {
         this.rebate = rebate;
     }
 
-    public double getTotalCharges() {
-        return totalCharges;
+    // Amounts in whole sen
+    public long getTotalChargesSen() {
+        return totalChargesSen;
     }
 
-    public void setTotalCharges(double totalCharges) {
-        this.totalCharges = totalCharges;
+    public void setTotalChargesSen(long totalChargesSen) {
+        this.totalChargesSen = totalChargesSen;
     }
 
-    public double getFinalCost() {
-        return finalCost;
+    public long getFinalCostSen() {
+        return finalCostSen;
     }
 
-    public void setFinalCost(double finalCost) {
-        this.finalCost = finalCost;
+    public void setFinalCostSen(long finalCostSen) {
+        this.finalCostSen = finalCostSen;
     }
 
-    public String getTimestamp() {
+    // Epoch milliseconds
+    public long getTimestamp() {
         return timestamp;
     }
 
-    public void setTimestamp(String timestamp) {
+    public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.example.electricitybillcalculator;
+
+import java.util.ArrayList;
+
+/**
+ * Loads the bill history one fixed-size page at a time, newest first.
+ * Only the pages the user has actually scrolled to are ever read from the database.
+ */
+public class BillPageLoader {
+
+    public static final int DEFAULT_PAGE_SIZE = 30;
+
+    private final DatabaseHelper databaseHelper;
+    private final int pageSize;
+
+    // Pages load on a repository thread while hasMore() is asked on the main thread
+    private volatile BillModel lastLoaded;
+    private volatile boolean endReached;
+
+    public BillPageLoader(DatabaseHelper databaseHelper, int pageSize) {
+        this.databaseHelper = databaseHelper;
+        this.pageSize = pageSize;
+    }
+
+    // Load the page following the last one returned; empty once the history is exhausted
+    public ArrayList<BillModel> loadNextPage() {
+        return load(pageSize);
+    }
+
+    // Start again from the newest bill with a first page of at least count bills, so a
+    // refresh can cover every row already on screen
+    public ArrayList<BillModel> loadFirstPage(int count) {
+        reset();
+        return load(Math.max(count, pageSize));
+    }
+
+    private ArrayList<BillModel> load(int limit) {
+        if (endReached) {
+            return new ArrayList<>();
+        }
+
+        ArrayList<BillModel> page = databaseHelper.getBillsPage(lastLoaded, limit);
+        if (page.size() < limit) {
+            endReached = true;
+        }
+        if (!page.isEmpty()) {
+            lastLoaded = page.get(page.size() - 1);
+        }
+        return page;
+    }
+
+    // Start again from the newest bill
+    public void reset() {
+        lastLoaded = null;
+        endReached = false;
+    }
+
+    public boolean hasMore() {
+        return !endReached;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
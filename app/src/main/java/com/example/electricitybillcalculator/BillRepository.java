@@ -0,0 +1,420 @@
+package com.example.electricitybillcalculator;
+
+import android.app.Activity;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.Trace;
+import android.provider.DocumentsContract;
+import android.util.Log;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+import com.example.electricitybillcalculator.core.BillColumns;
+import com.example.electricitybillcalculator.core.BillExportWriter;
+import com.example.electricitybillcalculator.core.IntervalCsvReader;
+import com.example.electricitybillcalculator.core.IntervalStore;
+import com.example.electricitybillcalculator.core.MeterReadingCsvReader;
+import com.example.electricitybillcalculator.core.Metrics;
+import com.example.electricitybillcalculator.core.TariffCatalog;
+import com.example.electricitybillcalculator.core.TariffSchedule;
+import com.example.electricitybillcalculator.core.WhatIfResult;
+import com.example.electricitybillcalculator.core.WhatIfSimulator;
+import com.example.electricitybillcalculator.core.WriteBehindQueue;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every {@link DatabaseHelper} operation on a small pool of background threads and
+ * delivers the result on the main thread. Saves go through the helper's write-behind
+ * queue instead, so bills saved in quick succession are committed together.
+ *
+ * <p>Each call is tied to a {@link LifecycleOwner} (normally the calling activity). When
+ * the owner is destroyed, work that has not started yet is cancelled and results of work
+ * already running are dropped, so callbacks never reach a destroyed activity. Imports and
+ * exports are the exception: an activity destroyed only to be recreated for a
+ * configuration change, such as a rotation, leaves them running and just drops their
+ * results. Must be called from the main thread.
+ */
+public class BillRepository {
+    private static final String TAG = "BillRepository";
+
+    // Reads run concurrently with a write in WAL mode; more threads would only queue on
+    // the single writer.
+    private static final int THREAD_COUNT = 2;
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public interface ProgressCallback {
+        void onProgress(int rowsRead, int rowsImported);
+    }
+
+    /** Handle to a submitted operation. */
+    public static class Task {
+        private volatile boolean cancelled;
+        // Set on the main thread when the owner is gone but the work is left to finish
+        private boolean detached;
+        private Future<?> future;
+        private CancellationSignal cancellationSignal;
+
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+            if (cancellationSignal != null) {
+                cancellationSignal.cancel();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        // Whether results and progress should still reach the owner; main thread only
+        private boolean delivers() {
+            return !cancelled && !detached;
+        }
+    }
+
+    private static BillRepository instance;
+
+    private final DatabaseHelper databaseHelper;
+    private final ContentResolver contentResolver;
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final WhatIfSimulator whatIfSimulator = new WhatIfSimulator();
+
+    public static synchronized BillRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new BillRepository(DatabaseHelper.getInstance(context),
+                    context.getApplicationContext().getContentResolver());
+        }
+        return instance;
+    }
+
+    private BillRepository(DatabaseHelper databaseHelper, ContentResolver contentResolver) {
+        this.databaseHelper = databaseHelper;
+        this.contentResolver = contentResolver;
+        this.executor = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }, "bill-db-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    // Save a new bill through the write-behind queue; true once it is committed
+    public Task addBill(LifecycleOwner owner, BillModel bill, Callback<Boolean> callback) {
+        return queue(owner, bill, callback);
+    }
+
+    public Task getBillById(LifecycleOwner owner, int id, Callback<BillModel> callback) {
+        return submit(owner, () -> databaseHelper.getBillById(id), null, callback);
+    }
+
+    // Save changes to a bill through the write-behind queue; true once they are committed
+    public Task updateBill(LifecycleOwner owner, BillModel bill, Callback<Boolean> callback) {
+        return queue(owner, bill, callback);
+    }
+
+    public Task deleteBill(LifecycleOwner owner, int id, Callback<Boolean> callback) {
+        return submit(owner, () -> databaseHelper.deleteBill(id), false, callback);
+    }
+
+    // Open the database, running any migration, and load the tariff schedules, so the
+    // screens after the splash find both ready. The result is false if either failed.
+    public Task warmUp(LifecycleOwner owner, Callback<Boolean> callback) {
+        return submit(owner, () -> {
+            Trace.beginSection(StartupTrace.SECTION_WARM_UP);
+            try {
+                databaseHelper.getWritableDatabase();
+                databaseHelper.getTariffCatalog();
+                return true;
+            } finally {
+                Trace.endSection();
+            }
+        }, false, callback);
+    }
+
+    // Load the tariff schedules; the built-in tariff if they cannot be read
+    public Task getTariffCatalog(LifecycleOwner owner, Callback<TariffCatalog> callback) {
+        return submit(owner, databaseHelper::getTariffCatalog, TariffCatalog.builtIn(), callback);
+    }
+
+    // Load every bill as a columnar snapshot for statistics; null if it cannot be read
+    public Task getBillColumns(LifecycleOwner owner, Callback<BillColumns> callback) {
+        return submit(owner, databaseHelper::getBillColumns, null, callback);
+    }
+
+    // Re-rate the bills of the last given number of years under every schedule and rebate.
+    // The bills are read on a database thread and rated in parallel on every core. The
+    // result is null if the history cannot be read or a schedule or rebate is not valid.
+    public Task simulateWhatIf(LifecycleOwner owner, int years, List<TariffSchedule> schedules,
+                               double[] rebates, Callback<WhatIfResult> callback) {
+        return submit(owner, () -> {
+            long since = ZonedDateTime.now().minusYears(years).toInstant().toEpochMilli();
+            double[] units = databaseHelper.getUnitsSince(since);
+            WhatIfResult result = whatIfSimulator.simulate(units, units.length, schedules, rebates);
+            Log.i(TAG, "What-if: " + result);
+            return result;
+        }, null, callback);
+    }
+
+    public BillPageLoader newPageLoader(int pageSize) {
+        return new BillPageLoader(databaseHelper, pageSize);
+    }
+
+    // Load the next page of the given loader, formatted for display; an empty page once
+    // history is exhausted
+    public Task loadNextPage(LifecycleOwner owner, BillPageLoader loader,
+                             Callback<ArrayList<BillListItem>> callback) {
+        return submit(owner, () -> BillListItem.fromBills(loader.loadNextPage()),
+                new ArrayList<>(), callback);
+    }
+
+    // Restart the loader from the newest bill, loading at least count bills
+    public Task loadFirstPage(LifecycleOwner owner, BillPageLoader loader, int count,
+                              Callback<ArrayList<BillListItem>> callback) {
+        return submit(owner, () -> BillListItem.fromBills(loader.loadFirstPage(count)),
+                new ArrayList<>(), callback);
+    }
+
+    // Import meter readings from a CSV document. Progress is reported on the main thread
+    // after every committed batch; cancelling the task (or finishing the owner) stops the
+    // import after the batch in progress. The result is null if the file cannot be read.
+    public Task importBills(LifecycleOwner owner, Uri uri, ProgressCallback progress,
+                            Callback<ImportResult> callback) {
+        Task task = new Task();
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        task.cancellationSignal = cancellationSignal;
+        return submit(owner, task, () -> {
+            InputStream in = contentResolver.openInputStream(uri);
+            if (in == null) {
+                throw new FileNotFoundException(uri.toString());
+            }
+            try (MeterReadingCsvReader reader = new MeterReadingCsvReader(
+                    new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                return databaseHelper.importBills(reader, databaseHelper.getTariffCatalog(),
+                        (rowsRead, rowsImported) -> mainHandler.post(() -> {
+                            if (task.delivers()) {
+                                progress.onProgress(rowsRead, rowsImported);
+                            }
+                        }),
+                        cancellationSignal);
+            }
+        }, null, callback);
+    }
+
+    // Import interval readings from a CSV document into the store file and bill the months
+    // they complete. Progress is reported on the main thread; cancelling the task (or
+    // finishing the owner) stops reading, keeping and billing what was read. The result
+    // is null if the document or the store cannot be read.
+    public Task importIntervals(LifecycleOwner owner, Uri uri, File storeFile,
+                                ProgressCallback progress, Callback<ImportResult> callback) {
+        Task task = new Task();
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        task.cancellationSignal = cancellationSignal;
+        return submit(owner, task, () -> {
+            InputStream in = contentResolver.openInputStream(uri);
+            if (in == null) {
+                throw new FileNotFoundException(uri.toString());
+            }
+            try (IntervalCsvReader reader = new IntervalCsvReader(
+                    new InputStreamReader(in, StandardCharsets.UTF_8));
+                 IntervalStore store = IntervalStore.open(storeFile)) {
+                return databaseHelper.importIntervals(reader, store, databaseHelper.getTariffCatalog(),
+                        (rowsRead, rowsImported) -> mainHandler.post(() -> {
+                            if (task.delivers()) {
+                                progress.onProgress(rowsRead, rowsImported);
+                            }
+                        }),
+                        cancellationSignal);
+            }
+        }, null, callback);
+    }
+
+    // Export every bill to a document in the given format. The result is the number of
+    // rows written, or null if the document cannot be written. An export that fails or is
+    // cancelled (or whose owner finishes) deletes the document rather than leave part of
+    // the history in it.
+    public Task exportBills(LifecycleOwner owner, Uri uri, BillExportWriter.Format format,
+                            Callback<Integer> callback) {
+        Task task = new Task();
+        CancellationSignal cancellationSignal = new CancellationSignal();
+        task.cancellationSignal = cancellationSignal;
+        return submit(owner, task, () -> {
+            OutputStream out = contentResolver.openOutputStream(uri, "wt");
+            if (out == null) {
+                throw new FileNotFoundException(uri.toString());
+            }
+            boolean complete = false;
+            try {
+                int rows;
+                try (BillExportWriter writer = BillExportWriter.create(format, out)) {
+                    rows = databaseHelper.exportBills(writer, cancellationSignal);
+                }
+                complete = !cancellationSignal.isCanceled();
+                return complete ? rows : null;
+            } finally {
+                if (!complete) {
+                    discardExport(uri);
+                }
+            }
+        }, null, callback);
+    }
+
+    // Delete a document an export did not finish, or empty it if the provider cannot
+    private void discardExport(Uri uri) {
+        try {
+            if (DocumentsContract.deleteDocument(contentResolver, uri)) {
+                return;
+            }
+        } catch (FileNotFoundException | RuntimeException e) {
+            // Not a document that can be deleted; empty it instead
+        }
+        try {
+            OutputStream out = contentResolver.openOutputStream(uri, "wt");
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Could not discard partial export " + uri, e);
+        }
+    }
+
+    // Write the metrics report to a new timestamped file in the directory. The result is
+    // the file, or null if it cannot be written.
+    public Task dumpMetrics(LifecycleOwner owner, File directory, Callback<File> callback) {
+        return submit(owner, () -> {
+            if (directory == null) {
+                throw new FileNotFoundException("No metrics directory");
+            }
+            File file = new File(directory, "metrics-" + System.currentTimeMillis() + ".txt");
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                Metrics.writeReport(out);
+            }
+            return file;
+        }, null, callback);
+    }
+
+    // Queue a save and post whether it was committed back to the main thread unless the
+    // owner has been destroyed in the meantime. Cancelling drops the result; a queued
+    // save is still written.
+    private Task queue(LifecycleOwner owner, BillModel bill, Callback<Boolean> callback) {
+        Task task = new Task();
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            task.cancel();
+            return task;
+        }
+
+        LifecycleEventObserver observer = (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                task.cancel();
+            }
+        };
+        lifecycle.addObserver(observer);
+
+        WriteBehindQueue.WriteCallback written = error -> {
+            if (error != null) {
+                Log.e(TAG, "Saving bill failed", error);
+            }
+            mainHandler.post(() -> {
+                lifecycle.removeObserver(observer);
+                if (!task.isCancelled()) {
+                    callback.onResult(error == null);
+                }
+            });
+        };
+        // Called on the main thread, so a full queue fails the save rather than blocking
+        try {
+            if (!databaseHelper.offerBill(bill, written)) {
+                written.onWritten(new IllegalStateException("Too many saves waiting"));
+            }
+        } catch (IllegalStateException e) {
+            written.onWritten(e); // the database has been closed
+        }
+        return task;
+    }
+
+    // Run work in the background and post its result, or the fallback if it throws,
+    // back to the main thread unless the owner has been destroyed in the meantime.
+    private <T> Task submit(LifecycleOwner owner, Callable<T> work, T fallback, Callback<T> callback) {
+        return submit(owner, new Task(), work, fallback, callback);
+    }
+
+    // Imports and exports carry a cancellation signal. They are left to finish when the
+    // owner is only being recreated for a configuration change, so a rotation does not
+    // stop them halfway; their results are dropped like any other.
+    private <T> Task submit(LifecycleOwner owner, Task task, Callable<T> work, T fallback,
+                            Callback<T> callback) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            task.cancel();
+            return task;
+        }
+
+        LifecycleEventObserver observer = (source, event) -> {
+            if (event != Lifecycle.Event.ON_DESTROY) {
+                return;
+            }
+            if (task.cancellationSignal != null && source instanceof Activity
+                    && ((Activity) source).isChangingConfigurations()) {
+                task.detached = true;
+            } else {
+                task.cancel();
+            }
+        };
+        lifecycle.addObserver(observer);
+
+        task.future = executor.submit(() -> {
+            T result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Database operation failed", e);
+                result = fallback;
+            }
+
+            T delivered = result;
+            mainHandler.post(() -> {
+                lifecycle.removeObserver(observer);
+                if (task.delivers()) {
+                    callback.onResult(delivered);
+                }
+            });
+        });
+        return task;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.electricitybillcalculator;
+
+public class BillSummary {
+    private final int year;
+    private final String month;
+    private final int billCount;
+    private final double totalUnits;
+    private final long totalChargesSen;
+    private final long totalFinalCostSen;
+    private final double totalRebate;
+
+    // Constructor; month is null for a yearly summary
+    public BillSummary(int year, String month, int billCount, double totalUnits,
+                       long totalChargesSen, long totalFinalCostSen, double totalRebate) {
+        this.year = year;
+        this.month = month;
+        this.billCount = billCount;
+        this.totalUnits = totalUnits;
+        this.totalChargesSen = totalChargesSen;
+        this.totalFinalCostSen = totalFinalCostSen;
+        this.totalRebate = totalRebate;
+    }
+
+    // Getters
+    public int getYear() {
+        return year;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public int getBillCount() {
+        return billCount;
+    }
+
+    public double getTotalUnits() {
+        return totalUnits;
+    }
+
+    public long getTotalChargesSen() {
+        return totalChargesSen;
+    }
+
+    public long getTotalFinalCostSen() {
+        return totalFinalCostSen;
+    }
+
+    public double getAverageRebate() {
+        return billCount == 0 ? 0 : totalRebate / billCount;
+    }
+}
@@ -1,27 +1,188 @@
 package com.example.electricitybillcalculator;
 
+import android.content.ComponentCallbacks2;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.database.Cursor;
+import android.os.CancellationSignal;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+import androidx.annotation.VisibleForTesting;
+import com.example.electricitybillcalculator.core.BillColumns;
+import com.example.electricitybillcalculator.core.BillExportWriter;
+import com.example.electricitybillcalculator.core.BillTimestamps;
+import com.example.electricitybillcalculator.core.IntervalCsvReader;
+import com.example.electricitybillcalculator.core.IntervalStore;
+import com.example.electricitybillcalculator.core.LatencyHistogram;
+import com.example.electricitybillcalculator.core.MeterReadingCsvReader;
+import com.example.electricitybillcalculator.core.Metrics;
+import com.example.electricitybillcalculator.core.MonthlyRollup;
+import com.example.electricitybillcalculator.core.TariffCatalog;
+import com.example.electricitybillcalculator.core.TariffEngine;
+import com.example.electricitybillcalculator.core.TariffSchedule;
+import com.example.electricitybillcalculator.core.WriteBehindQueue;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 
+/**
+ * Access to the bills database through one application-wide connection.
+ *
+ * <p>Thread safety: obtain the helper with {@link #getInstance(Context)} and do not close
+ * it. The connection is opened once and stays open for the life of the process, so no
+ * call pays the cost of reopening it and no caller can close it under another. Every
+ * public method may be called from any thread. The database runs in write-ahead logging
+ * mode: writes are serialised, while reads on other threads proceed concurrently with a
+ * write and see the last committed state. Operations that touch several rows (such as
+ * {@link #rerateAll(TariffCatalog)}) run in their own transaction and are never observed
+ * half done.
+ *
+ * <p>Bills read by id, page or month are kept in a {@link BillCache}, so opening a bill
+ * that was just listed does not touch the database. Updating, deleting or re-rating
+ * bills drops their cached copies.
+ *
+ * <p>Saves that do not need to be read back at once can go through
+ * {@link #queueBill(BillModel, WriteBehindQueue.WriteCallback)}, which collects them on a
+ * write-behind queue and commits them in groups with {@link #writeBills(List)}, paying
+ * for one transaction per batch instead of one per bill. A queued bill is not visible to
+ * reads until its callback has run. The queue is flushed when the app leaves the screen
+ * and when the helper is closed.
+ */
 public class DatabaseHelper extends SQLiteOpenHelper {
+    private static final String TAG = "DatabaseHelper";
     private static final String DATABASE_NAME = "electricity_bills.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 7;
 
     private static final String TABLE_BILLS = "bills";
     private static final String COLUMN_ID = "id";
     private static final String COLUMN_MONTH = "month";
     private static final String COLUMN_UNITS = "units";
     private static final String COLUMN_REBATE = "rebate";
-    private static final String COLUMN_TOTAL_CHARGES = "total_charges";
-    private static final String COLUMN_FINAL_COST = "final_cost";
+    private static final String COLUMN_TOTAL_CHARGES = "total_charges"; // whole sen
+    private static final String COLUMN_FINAL_COST = "final_cost";       // whole sen
     private static final String COLUMN_TIMESTAMP = "timestamp";
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    private static final String INDEX_BILLS_TIMESTAMP = "idx_bills_timestamp";
+    private static final String INDEX_BILLS_MONTH = "idx_bills_month";
+
+    // Per (year, month) running totals, kept in step with bills by triggers
+    private static final String TABLE_SUMMARY = "bill_summary";
+    private static final String COLUMN_YEAR = "year";
+    private static final String COLUMN_BILL_COUNT = "bill_count";
+    private static final String COLUMN_TOTAL_UNITS = "total_units";
+    private static final String COLUMN_TOTAL_FINAL_COST = "total_final_cost"; // whole sen
+    private static final String COLUMN_TOTAL_REBATE = "total_rebate";
+
+    // Tariff schedules: one row per version of a utility's tariff, with its blocks in
+    // TABLE_TARIFF_BLOCKS
+    private static final String TABLE_TARIFF_SCHEDULES = "tariff_schedules";
+    private static final String COLUMN_UTILITY = "utility";
+    private static final String COLUMN_NAME = "name";
+    private static final String COLUMN_EFFECTIVE_FROM = "effective_from"; // epoch millis
+    private static final String INDEX_TARIFF_SCHEDULES_UTILITY = "idx_tariff_schedules_utility";
+
+    private static final String TABLE_TARIFF_BLOCKS = "tariff_blocks";
+    private static final String COLUMN_SCHEDULE_ID = "schedule_id";
+    private static final String COLUMN_BLOCK = "block";
+    private static final String COLUMN_UPPER_KWH = "upper_kwh";
+    private static final String COLUMN_RATE_SEN = "rate_sen";
+
+    // Rows inserted per transaction by importBills
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    // Queued saves committed together, and the longest a save waits for others to join it
+    private static final int WRITE_BATCH_SIZE = 500;
+    private static final long WRITE_DELAY_MS = 20;
+
+    public interface ImportProgressListener {
+        // Called on the importing thread after each committed batch
+        void onProgress(int rowsRead, int rowsImported);
+    }
+
+    private static final List<String> MONTHS = Arrays.asList("January", "February", "March",
+            "April", "May", "June", "July", "August", "September", "October", "November", "December");
+
+    // Latency of each operation, reported by Metrics
+    private static final LatencyHistogram ADD_BILL = Metrics.histogram("db.addBill");
+    private static final LatencyHistogram GET_ALL_BILLS = Metrics.histogram("db.getAllBills");
+    private static final LatencyHistogram GET_BILL_COLUMNS = Metrics.histogram("db.getBillColumns");
+    private static final LatencyHistogram GET_BILLS_PAGE = Metrics.histogram("db.getBillsPage");
+    private static final LatencyHistogram GET_BILLS_BY_MONTH = Metrics.histogram("db.getBillsByMonth");
+    private static final LatencyHistogram GET_UNITS_SINCE = Metrics.histogram("db.getUnitsSince");
+    private static final LatencyHistogram GET_BILL_BY_ID = Metrics.histogram("db.getBillById");
+    private static final LatencyHistogram UPDATE_BILL = Metrics.histogram("db.updateBill");
+    private static final LatencyHistogram WRITE_BILLS = Metrics.histogram("db.writeBills");
+    private static final LatencyHistogram DELETE_BILL = Metrics.histogram("db.deleteBill");
+    private static final LatencyHistogram ADD_TARIFF_SCHEDULE = Metrics.histogram("db.addTariffSchedule");
+    private static final LatencyHistogram GET_TARIFF_SCHEDULES = Metrics.histogram("db.getTariffSchedules");
+    private static final LatencyHistogram RERATE_ALL = Metrics.histogram("db.rerateAll");
+    private static final LatencyHistogram IMPORT_BILLS = Metrics.histogram("db.importBills");
+    private static final LatencyHistogram IMPORT_INTERVALS = Metrics.histogram("db.importIntervals");
+    private static final LatencyHistogram BILL_INTERVALS = Metrics.histogram("db.billIntervals");
+    private static final LatencyHistogram EXPORT_BILLS = Metrics.histogram("db.exportBills");
+    private static final LatencyHistogram GET_MONTHLY_SUMMARIES = Metrics.histogram("db.getMonthlySummaries");
+    private static final LatencyHistogram GET_YEARLY_SUMMARIES = Metrics.histogram("db.getYearlySummaries");
+    private static final LatencyHistogram VERIFY_SUMMARIES = Metrics.histogram("db.verifySummaries");
+    private static final LatencyHistogram REBUILD_SUMMARIES = Metrics.histogram("db.rebuildSummaries");
+
+    private static DatabaseHelper instance;
+
+    // Compiled tariff schedules, loaded on first use and dropped when a schedule is added
+    private final Object tariffLock = new Object();
+    private volatile TariffCatalog tariffCatalog;
+
+    // Bills read recently, so opening one that was just listed needs no query
+    private final BillCache billCache = new BillCache(BillCache.DEFAULT_MAX_BYTES);
+
+    // Saves waiting to be committed in groups by writeBills
+    private final WriteBehindQueue<Integer, BillModel> writeQueue = new WriteBehindQueue<>(
+            this::writeQueuedBills, WRITE_BATCH_SIZE, WRITE_DELAY_MS, "bill-writer");
+
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context.getApplicationContext());
+            instance.flushWhenHidden(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Commit queued saves once the app's UI is hidden, the last point at which the
+    // process is reliably alive
+    private void flushWhenHidden(Context context) {
+        context.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                    writeQueue.requestFlush();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                writeQueue.requestFlush();
+            }
+        });
+    }
+
+    private DatabaseHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    @VisibleForTesting
+    DatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+        writeQueue.setCallbackErrorHandler(error -> Log.e(TAG, "Bill save callback failed", error));
     }
 
     @Override
@@ -36,37 +197,262 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + COLUMN_TIMESTAMP + " DATETIME DEFAULT CURRENT_TIMESTAMP"
                 + ")";
         db.execSQL(CREATE_BILLS_TABLE);
+
+        // A new database starts at version 1 and goes through the same migrations
+        // as an upgraded one, so both end up with an identical schema.
+        onUpgrade(db, 1, DATABASE_VERSION);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BILLS);
-        onCreate(db);
+        // Runs inside the open helper's transaction: either every step applies or none does
+        for (int version = oldVersion + 1; version <= newVersion; version++) {
+            migrate(db, version);
+        }
+    }
+
+    // Bring the schema from (version - 1) to version, keeping every existing bill
+    private void migrate(SQLiteDatabase db, int version) {
+        switch (version) {
+            case 2:
+                createIndexes(db);
+                break;
+            case 3:
+                createSummaryTable(db);
+                createSummaryTriggers(db);
+                fillSummaries(db);
+                break;
+            case 4:
+                // Timestamps change from UTC text to epoch milliseconds. SQLite cannot change
+                // a column's type in place, so the table is copied into a new one and the
+                // indexes, triggers and totals that hang off it are rebuilt.
+                db.execSQL("CREATE TABLE bills_v4("
+                        + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + COLUMN_MONTH + " TEXT,"
+                        + COLUMN_UNITS + " REAL,"
+                        + COLUMN_REBATE + " REAL,"
+                        + COLUMN_TOTAL_CHARGES + " REAL,"
+                        + COLUMN_FINAL_COST + " REAL,"
+                        + COLUMN_TIMESTAMP + " INTEGER NOT NULL DEFAULT "
+                        + "(CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER))"
+                        + ")");
+                db.execSQL("INSERT INTO bills_v4 SELECT " + COLUMN_ID + ", " + COLUMN_MONTH + ", "
+                        + COLUMN_UNITS + ", " + COLUMN_REBATE + ", " + COLUMN_TOTAL_CHARGES + ", "
+                        + COLUMN_FINAL_COST + ", "
+                        + "IFNULL(CAST(strftime('%s', " + COLUMN_TIMESTAMP + ") AS INTEGER) * 1000, 0)"
+                        + " FROM " + TABLE_BILLS);
+                db.execSQL("DROP TABLE " + TABLE_BILLS);
+                db.execSQL("ALTER TABLE bills_v4 RENAME TO " + TABLE_BILLS);
+                createIndexes(db);
+                createSummaryTriggers(db);
+                db.execSQL("DELETE FROM " + TABLE_SUMMARY);
+                fillSummaries(db);
+                break;
+            case 5:
+                // Money changes from RM in REAL columns to whole sen in INTEGER columns, so
+                // amounts and their sums are exact. Both tables are rebuilt; the totals are
+                // recomputed from the converted bills.
+                db.execSQL("CREATE TABLE bills_v5("
+                        + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + COLUMN_MONTH + " TEXT,"
+                        + COLUMN_UNITS + " REAL,"
+                        + COLUMN_REBATE + " REAL,"
+                        + COLUMN_TOTAL_CHARGES + " INTEGER NOT NULL,"
+                        + COLUMN_FINAL_COST + " INTEGER NOT NULL,"
+                        + COLUMN_TIMESTAMP + " INTEGER NOT NULL DEFAULT "
+                        + "(CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER))"
+                        + ")");
+                db.execSQL("INSERT INTO bills_v5 SELECT " + COLUMN_ID + ", " + COLUMN_MONTH + ", "
+                        + COLUMN_UNITS + ", " + COLUMN_REBATE + ", "
+                        + "CAST(ROUND(IFNULL(" + COLUMN_TOTAL_CHARGES + ", 0) * 100) AS INTEGER), "
+                        + "CAST(ROUND(IFNULL(" + COLUMN_FINAL_COST + ", 0) * 100) AS INTEGER), "
+                        + COLUMN_TIMESTAMP + " FROM " + TABLE_BILLS);
+                db.execSQL("DROP TABLE " + TABLE_BILLS);
+                db.execSQL("ALTER TABLE bills_v5 RENAME TO " + TABLE_BILLS);
+                createIndexes(db);
+                db.execSQL("DROP TABLE " + TABLE_SUMMARY);
+                createSummaryTable(db);
+                createSummaryTriggers(db);
+                fillSummaries(db);
+                break;
+            case 6:
+                // Tariffs become data, starting with the domestic tariff that was built in
+                db.execSQL("CREATE TABLE " + TABLE_TARIFF_SCHEDULES + "("
+                        + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                        + COLUMN_UTILITY + " TEXT NOT NULL,"
+                        + COLUMN_NAME + " TEXT,"
+                        + COLUMN_EFFECTIVE_FROM + " INTEGER NOT NULL)");
+                db.execSQL("CREATE INDEX " + INDEX_TARIFF_SCHEDULES_UTILITY + " ON "
+                        + TABLE_TARIFF_SCHEDULES + "(" + COLUMN_UTILITY + ", " + COLUMN_EFFECTIVE_FROM + ")");
+                db.execSQL("CREATE TABLE " + TABLE_TARIFF_BLOCKS + "("
+                        + COLUMN_SCHEDULE_ID + " INTEGER NOT NULL REFERENCES "
+                        + TABLE_TARIFF_SCHEDULES + "(" + COLUMN_ID + ") ON DELETE CASCADE,"
+                        + COLUMN_BLOCK + " INTEGER NOT NULL,"
+                        + COLUMN_UPPER_KWH + " INTEGER NOT NULL,"
+                        + COLUMN_RATE_SEN + " REAL NOT NULL,"
+                        + "PRIMARY KEY(" + COLUMN_SCHEDULE_ID + ", " + COLUMN_BLOCK + "))");
+                TariffEngine domestic = TariffEngine.domestic();
+                insertTariffSchedule(db, new TariffSchedule(TariffCatalog.DEFAULT_UTILITY, "Domestic", 0,
+                        domestic.getLimits(), domestic.getRatesSen()));
+                break;
+            case 7:
+                // Summaries are keyed by the year of the month a bill is for rather than the
+                // year it was recorded in, so the triggers are replaced and the totals refilled
+                db.execSQL("DROP TRIGGER IF EXISTS bills_summary_insert");
+                db.execSQL("DROP TRIGGER IF EXISTS bills_summary_delete");
+                db.execSQL("DROP TRIGGER IF EXISTS bills_summary_update");
+                createSummaryTriggers(db);
+                db.execSQL("DELETE FROM " + TABLE_SUMMARY);
+                fillSummaries(db);
+                break;
+            default:
+                throw new IllegalStateException("No migration to database version " + version);
+        }
+    }
+
+    private static void createIndexes(SQLiteDatabase db) {
+        // History is read newest first with (timestamp, id) as the page key
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_BILLS_TIMESTAMP + " ON "
+                + TABLE_BILLS + "(" + COLUMN_TIMESTAMP + ", " + COLUMN_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_BILLS_MONTH + " ON "
+                + TABLE_BILLS + "(" + COLUMN_MONTH + ")");
+    }
+
+    private static void createSummaryTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_SUMMARY + "("
+                + COLUMN_YEAR + " INTEGER NOT NULL,"
+                + COLUMN_MONTH + " TEXT NOT NULL,"
+                + COLUMN_BILL_COUNT + " INTEGER NOT NULL,"
+                + COLUMN_TOTAL_UNITS + " REAL NOT NULL,"
+                + COLUMN_TOTAL_CHARGES + " INTEGER NOT NULL,"
+                + COLUMN_TOTAL_FINAL_COST + " INTEGER NOT NULL,"
+                + COLUMN_TOTAL_REBATE + " REAL NOT NULL,"
+                + "PRIMARY KEY(" + COLUMN_YEAR + ", " + COLUMN_MONTH + "))");
+    }
+
+    private static void createSummaryTriggers(SQLiteDatabase db) {
+        // Every change to bills adjusts the totals of the affected (year, month) by its
+        // delta, inside the statement that made the change.
+        db.execSQL("CREATE TRIGGER bills_summary_insert AFTER INSERT ON " + TABLE_BILLS
+                + " BEGIN " + addToSummary("NEW") + " END");
+        db.execSQL("CREATE TRIGGER bills_summary_delete AFTER DELETE ON " + TABLE_BILLS
+                + " BEGIN " + removeFromSummary("OLD") + " END");
+        db.execSQL("CREATE TRIGGER bills_summary_update AFTER UPDATE ON " + TABLE_BILLS
+                + " BEGIN " + removeFromSummary("OLD") + addToSummary("NEW") + " END");
+    }
+
+    // Year of the month a bill is for, by the rule of BillTimestamps.billingMonthStart: the
+    // local year of its timestamp, less one if the named month is later in the year than
+    // the timestamp (a December bill recorded in January). Expects epoch milliseconds;
+    // totals filled by migration 3 from text timestamps are thrown away and refilled by
+    // migration 4.
+    private static String yearOf(String row) {
+        String recorded = row + "." + COLUMN_TIMESTAMP + " / 1000, 'unixepoch', 'localtime'";
+        return "IFNULL(CAST(strftime('%Y', " + recorded + ") AS INTEGER) - ("
+                + monthNumberOf(row) + " > CAST(strftime('%m', " + recorded + ") AS INTEGER)), 0)";
+    }
+
+    // Number (1-12) of a bill's month name, ignoring case, or 0 as BillTimestamps.monthNumber
+    private static String monthNumberOf(String row) {
+        StringBuilder sql = new StringBuilder("CASE LOWER(" + row + "." + COLUMN_MONTH + ")");
+        for (int number = 1; number <= 12; number++) {
+            sql.append(" WHEN '").append(BillTimestamps.monthName(number).toLowerCase(Locale.ROOT))
+                    .append("' THEN ").append(number);
+        }
+        return sql.append(" ELSE 0 END").toString();
+    }
+
+    private static String monthOf(String row) {
+        return "IFNULL(" + row + "." + COLUMN_MONTH + ", '')";
+    }
+
+    private static String summaryKey(String row) {
+        return " WHERE " + COLUMN_YEAR + " = " + yearOf(row)
+                + " AND " + COLUMN_MONTH + " = " + monthOf(row);
+    }
+
+    private static String addToSummary(String row) {
+        return "INSERT OR IGNORE INTO " + TABLE_SUMMARY + " VALUES ("
+                + yearOf(row) + ", " + monthOf(row) + ", 0, 0, 0, 0, 0);"
+                + "UPDATE " + TABLE_SUMMARY + " SET "
+                + COLUMN_BILL_COUNT + " = " + COLUMN_BILL_COUNT + " + 1, "
+                + COLUMN_TOTAL_UNITS + " = " + COLUMN_TOTAL_UNITS + " + " + row + "." + COLUMN_UNITS + ", "
+                + COLUMN_TOTAL_CHARGES + " = " + COLUMN_TOTAL_CHARGES + " + " + row + "." + COLUMN_TOTAL_CHARGES + ", "
+                + COLUMN_TOTAL_FINAL_COST + " = " + COLUMN_TOTAL_FINAL_COST + " + " + row + "." + COLUMN_FINAL_COST + ", "
+                + COLUMN_TOTAL_REBATE + " = " + COLUMN_TOTAL_REBATE + " + " + row + "." + COLUMN_REBATE
+                + summaryKey(row) + ";";
+    }
+
+    private static String removeFromSummary(String row) {
+        return "UPDATE " + TABLE_SUMMARY + " SET "
+                + COLUMN_BILL_COUNT + " = " + COLUMN_BILL_COUNT + " - 1, "
+                + COLUMN_TOTAL_UNITS + " = " + COLUMN_TOTAL_UNITS + " - " + row + "." + COLUMN_UNITS + ", "
+                + COLUMN_TOTAL_CHARGES + " = " + COLUMN_TOTAL_CHARGES + " - " + row + "." + COLUMN_TOTAL_CHARGES + ", "
+                + COLUMN_TOTAL_FINAL_COST + " = " + COLUMN_TOTAL_FINAL_COST + " - " + row + "." + COLUMN_FINAL_COST + ", "
+                + COLUMN_TOTAL_REBATE + " = " + COLUMN_TOTAL_REBATE + " - " + row + "." + COLUMN_REBATE
+                + summaryKey(row) + ";"
+                + "DELETE FROM " + TABLE_SUMMARY + summaryKey(row)
+                + " AND " + COLUMN_BILL_COUNT + " <= 0;";
+    }
+
+    // Totals computed from scratch out of the bills table
+    private static String summariesFromBills() {
+        return "SELECT " + yearOf(TABLE_BILLS) + " AS " + COLUMN_YEAR + ", "
+                + monthOf(TABLE_BILLS) + " AS " + COLUMN_MONTH + ", "
+                + "COUNT(*) AS " + COLUMN_BILL_COUNT + ", "
+                + "TOTAL(" + COLUMN_UNITS + ") AS " + COLUMN_TOTAL_UNITS + ", "
+                + "SUM(" + COLUMN_TOTAL_CHARGES + ") AS " + COLUMN_TOTAL_CHARGES + ", "
+                + "SUM(" + COLUMN_FINAL_COST + ") AS " + COLUMN_TOTAL_FINAL_COST + ", "
+                + "TOTAL(" + COLUMN_REBATE + ") AS " + COLUMN_TOTAL_REBATE
+                + " FROM " + TABLE_BILLS
+                + " GROUP BY 1, 2";
+    }
+
+    private static void fillSummaries(SQLiteDatabase db) {
+        db.execSQL("INSERT INTO " + TABLE_SUMMARY + " " + summariesFromBills());
+    }
+
+    // Commit queued saves and stop the writer before the connection closes. Not
+    // synchronized: the writer needs the helper's lock to finish its last batch.
+    @Override
+    public void close() {
+        writeQueue.close();
+        super.close();
+    }
+
+    // Cache of bills by id, for its hit, miss and eviction counts
+    public BillCache getBillCache() {
+        return billCache;
     }
 
     // Add new bill
     public boolean addBill(BillModel bill) {
+        long metricsStart = Metrics.start();
         SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
 
         values.put(COLUMN_MONTH, bill.getMonth());
         values.put(COLUMN_UNITS, bill.getUnits());
         values.put(COLUMN_REBATE, bill.getRebate());
-        values.put(COLUMN_TOTAL_CHARGES, bill.getTotalCharges());
-        values.put(COLUMN_FINAL_COST, bill.getFinalCost());
+        values.put(COLUMN_TOTAL_CHARGES, bill.getTotalChargesSen());
+        values.put(COLUMN_FINAL_COST, bill.getFinalCostSen());
+        values.put(COLUMN_TIMESTAMP, bill.getTimestamp() > 0
+                ? bill.getTimestamp() : System.currentTimeMillis());
 
         long result = db.insert(TABLE_BILLS, null, values);
-        db.close();
 
+        Metrics.stop(ADD_BILL, metricsStart);
         return result != -1;
     }
 
     // Get all bills
     public ArrayList<BillModel> getAllBills() {
+        long metricsStart = Metrics.start();
         ArrayList<BillModel> billList = new ArrayList<>();
         String query = "SELECT * FROM " + TABLE_BILLS + " ORDER BY " + COLUMN_TIMESTAMP + " DESC";
 
         SQLiteDatabase db = this.getReadableDatabase();
+        long generation = billCache.generation();
         Cursor cursor = db.rawQuery(query, null);
 
         if (cursor.moveToFirst()) {
@@ -76,22 +462,152 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 bill.setMonth(cursor.getString(1));
                 bill.setUnits(cursor.getDouble(2));
                 bill.setRebate(cursor.getDouble(3));
-                bill.setTotalCharges(cursor.getDouble(4));
-                bill.setFinalCost(cursor.getDouble(5));
-                bill.setTimestamp(cursor.getString(6));
+                bill.setTotalChargesSen(cursor.getLong(4));
+                bill.setFinalCostSen(cursor.getLong(5));
+                bill.setTimestamp(cursor.getLong(6));
 
                 billList.add(bill);
             } while (cursor.moveToNext());
         }
 
         cursor.close();
-        db.close();
+        billCache.put(billList, generation);
+        Metrics.stop(GET_ALL_BILLS, metricsStart);
         return billList;
     }
 
-    // Get bill by ID
+    // Every bill, oldest first, as a columnar snapshot for analytics. Rows go straight
+    // from the cursor into primitive arrays; no BillModel is created.
+    public BillColumns getBillColumns() {
+        long metricsStart = Metrics.start();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_BILLS,
+                new String[]{COLUMN_ID, COLUMN_MONTH, COLUMN_UNITS, COLUMN_REBATE,
+                        COLUMN_TOTAL_CHARGES, COLUMN_FINAL_COST, COLUMN_TIMESTAMP},
+                null, null, null, null,
+                COLUMN_TIMESTAMP + ", " + COLUMN_ID);
+
+        BillColumns.Builder columns = new BillColumns.Builder(cursor.getCount());
+        while (cursor.moveToNext()) {
+            columns.add(
+                    cursor.getInt(0),
+                    BillTimestamps.monthNumber(cursor.getString(1)),
+                    cursor.getDouble(2),
+                    cursor.getDouble(3),
+                    cursor.getLong(4),
+                    cursor.getLong(5),
+                    cursor.getLong(6));
+        }
+
+        cursor.close();
+        Metrics.stop(GET_BILL_COLUMNS, metricsStart);
+        return columns.build();
+    }
+
+    // Get one page of bills, newest first. Pages are keyed on (timestamp, id) of the
+    // last bill of the previous page, so each page is a bounded index range scan no
+    // matter how deep into the history it is. Pass null to get the first page.
+    public ArrayList<BillModel> getBillsPage(BillModel after, int pageSize) {
+        long metricsStart = Metrics.start();
+        ArrayList<BillModel> page = new ArrayList<>(pageSize);
+        String selection = null;
+        String[] selectionArgs = null;
+        if (after != null) {
+            selection = COLUMN_TIMESTAMP + " < ? OR (" + COLUMN_TIMESTAMP + " = ? AND "
+                    + COLUMN_ID + " < ?)";
+            String timestamp = String.valueOf(after.getTimestamp());
+            selectionArgs = new String[]{timestamp, timestamp,
+                    String.valueOf(after.getId())};
+        }
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        long generation = billCache.generation();
+        Cursor cursor = db.query(TABLE_BILLS,
+                new String[]{COLUMN_ID, COLUMN_MONTH, COLUMN_UNITS, COLUMN_REBATE,
+                        COLUMN_TOTAL_CHARGES, COLUMN_FINAL_COST, COLUMN_TIMESTAMP},
+                selection, selectionArgs, null, null,
+                COLUMN_TIMESTAMP + " DESC, " + COLUMN_ID + " DESC",
+                String.valueOf(pageSize));
+
+        while (cursor.moveToNext()) {
+            page.add(new BillModel(
+                    cursor.getInt(0),
+                    cursor.getString(1),
+                    cursor.getDouble(2),
+                    cursor.getDouble(3),
+                    cursor.getLong(4),
+                    cursor.getLong(5),
+                    cursor.getLong(6)
+            ));
+        }
+
+        cursor.close();
+        billCache.put(page, generation);
+        Metrics.stop(GET_BILLS_PAGE, metricsStart);
+        return page;
+    }
+
+    // Get all bills of one month, newest first
+    public ArrayList<BillModel> getBillsByMonth(String month) {
+        long metricsStart = Metrics.start();
+        ArrayList<BillModel> billList = new ArrayList<>();
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        long generation = billCache.generation();
+        Cursor cursor = db.query(TABLE_BILLS,
+                new String[]{COLUMN_ID, COLUMN_MONTH, COLUMN_UNITS, COLUMN_REBATE,
+                        COLUMN_TOTAL_CHARGES, COLUMN_FINAL_COST, COLUMN_TIMESTAMP},
+                COLUMN_MONTH + "=?", new String[]{month}, null, null,
+                COLUMN_TIMESTAMP + " DESC");
+
+        while (cursor.moveToNext()) {
+            billList.add(new BillModel(
+                    cursor.getInt(0),
+                    cursor.getString(1),
+                    cursor.getDouble(2),
+                    cursor.getDouble(3),
+                    cursor.getLong(4),
+                    cursor.getLong(5),
+                    cursor.getLong(6)
+            ));
+        }
+
+        cursor.close();
+        billCache.put(billList, generation);
+        Metrics.stop(GET_BILLS_BY_MONTH, metricsStart);
+        return billList;
+    }
+
+    // Consumption of every bill read at or after the given time, for simulations that
+    // re-rate the history. A range scan of the timestamp index straight into an array.
+    public double[] getUnitsSince(long since) {
+        long metricsStart = Metrics.start();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_BILLS, new String[]{COLUMN_UNITS},
+                COLUMN_TIMESTAMP + " >= ?", new String[]{String.valueOf(since)},
+                null, null, null);
+
+        double[] units = new double[cursor.getCount()];
+        for (int i = 0; cursor.moveToNext(); i++) {
+            units[i] = cursor.getDouble(0);
+        }
+
+        cursor.close();
+        Metrics.stop(GET_UNITS_SINCE, metricsStart);
+        return units;
+    }
+
+    // Get bill by ID, from the cache when it was read recently
     public BillModel getBillById(int id) {
+        long metricsStart = Metrics.start();
+        BillModel cached = billCache.get(id);
+        if (cached != null) {
+            Metrics.stop(GET_BILL_BY_ID, metricsStart);
+            return cached;
+        }
+
         SQLiteDatabase db = this.getReadableDatabase();
+        long generation = billCache.generation();
         Cursor cursor = db.query(TABLE_BILLS,
                 new String[]{COLUMN_ID, COLUMN_MONTH, COLUMN_UNITS, COLUMN_REBATE,
                         COLUMN_TOTAL_CHARGES, COLUMN_FINAL_COST, COLUMN_TIMESTAMP},
@@ -105,40 +621,642 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                     cursor.getString(1),
                     cursor.getDouble(2),
                     cursor.getDouble(3),
-                    cursor.getDouble(4),
-                    cursor.getDouble(5),
-                    cursor.getString(6)
+                    cursor.getLong(4),
+                    cursor.getLong(5),
+                    cursor.getLong(6)
             );
+        }
+        if (cursor != null) {
             cursor.close();
         }
-        db.close();
+        if (bill != null) {
+            billCache.put(bill, generation);
+        }
+        Metrics.stop(GET_BILL_BY_ID, metricsStart);
         return bill;
     }
 
     // Update bill
     public boolean updateBill(BillModel bill) {
+        long metricsStart = Metrics.start();
         SQLiteDatabase db = this.getWritableDatabase();
         ContentValues values = new ContentValues();
 
         values.put(COLUMN_MONTH, bill.getMonth());
         values.put(COLUMN_UNITS, bill.getUnits());
         values.put(COLUMN_REBATE, bill.getRebate());
-        values.put(COLUMN_TOTAL_CHARGES, bill.getTotalCharges());
-        values.put(COLUMN_FINAL_COST, bill.getFinalCost());
+        values.put(COLUMN_TOTAL_CHARGES, bill.getTotalChargesSen());
+        values.put(COLUMN_FINAL_COST, bill.getFinalCostSen());
 
         int result = db.update(TABLE_BILLS, values,
                 COLUMN_ID + "=?", new String[]{String.valueOf(bill.getId())});
-        db.close();
+        billCache.remove(bill.getId());
 
+        Metrics.stop(UPDATE_BILL, metricsStart);
         return result > 0;
     }
 
+    // Queue a new bill (id 0) or an update for the write-behind queue. Queued updates of
+    // the same bill are coalesced. The bill is copied, so the caller may keep changing it.
+    // The callback runs on the writer thread with null once the bill is committed, or
+    // with the error that failed its batch. Blocks while a full batch is already waiting.
+    public void queueBill(BillModel bill, WriteBehindQueue.WriteCallback callback)
+            throws InterruptedException {
+        writeQueue.submit(bill.getId() > 0 ? bill.getId() : null, new BillModel(bill), callback);
+    }
+
+    // queueBill for threads that must not block, such as the main thread: returns false
+    // without queueing, and without calling the callback, if a full batch is already waiting
+    public boolean offerBill(BillModel bill, WriteBehindQueue.WriteCallback callback) {
+        return writeQueue.offer(bill.getId() > 0 ? bill.getId() : null, new BillModel(bill), callback);
+    }
+
+    // Commit every bill queued so far and wait for it
+    public void flushQueuedBills() throws InterruptedException {
+        writeQueue.flush();
+    }
+
+    // Batch writer of the queue: a save of a bill that has been deleted fails on its own
+    private void writeQueuedBills(List<BillModel> bills) {
+        for (int index : writeBills(bills)) {
+            writeQueue.failWrite(index, new IllegalStateException(
+                    "Bill " + bills.get(index).getId() + " no longer exists"));
+        }
+    }
+
+    // Insert new bills (id 0) and update the others in one transaction through compiled
+    // statements. Updates of bills that no longer exist are skipped; returns their
+    // positions in the list.
+    public List<Integer> writeBills(List<BillModel> bills) {
+        long metricsStart = Metrics.start();
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_BILLS + "("
+                + COLUMN_MONTH + ", " + COLUMN_UNITS + ", " + COLUMN_REBATE + ", "
+                + COLUMN_TOTAL_CHARGES + ", " + COLUMN_FINAL_COST + ", " + COLUMN_TIMESTAMP
+                + ") VALUES (?, ?, ?, ?, ?, ?)");
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_BILLS + " SET "
+                + COLUMN_MONTH + "=?, " + COLUMN_UNITS + "=?, " + COLUMN_REBATE + "=?, "
+                + COLUMN_TOTAL_CHARGES + "=?, " + COLUMN_FINAL_COST + "=? WHERE " + COLUMN_ID + "=?");
+        long now = System.currentTimeMillis();
+        List<Integer> missing = new ArrayList<>();
+
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < bills.size(); i++) {
+                BillModel bill = bills.get(i);
+                SQLiteStatement statement = bill.getId() > 0 ? update : insert;
+                if (bill.getMonth() != null) {
+                    statement.bindString(1, bill.getMonth());
+                } else {
+                    statement.bindNull(1);
+                }
+                statement.bindDouble(2, bill.getUnits());
+                statement.bindDouble(3, bill.getRebate());
+                statement.bindLong(4, bill.getTotalChargesSen());
+                statement.bindLong(5, bill.getFinalCostSen());
+                if (bill.getId() > 0) {
+                    update.bindLong(6, bill.getId());
+                    if (update.executeUpdateDelete() == 0) {
+                        missing.add(i);
+                    }
+                } else {
+                    insert.bindLong(6, bill.getTimestamp() > 0 ? bill.getTimestamp() : now);
+                    insert.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+            update.close();
+            for (BillModel bill : bills) {
+                if (bill.getId() > 0) {
+                    billCache.remove(bill.getId());
+                }
+            }
+        }
+
+        Metrics.stop(WRITE_BILLS, metricsStart);
+        return missing;
+    }
+
     // Delete bill
     public boolean deleteBill(int id) {
+        long metricsStart = Metrics.start();
         SQLiteDatabase db = this.getWritableDatabase();
         int result = db.delete(TABLE_BILLS, COLUMN_ID + "=?", new String[]{String.valueOf(id)});
-        db.close();
+        billCache.remove(id);
 
+        Metrics.stop(DELETE_BILL, metricsStart);
         return result > 0;
     }
+
+    // Add a tariff schedule; false if its blocks are not valid. Bills already stored keep
+    // their charges until they are re-rated.
+    public boolean addTariffSchedule(TariffSchedule schedule) {
+        long metricsStart = Metrics.start();
+        try {
+            schedule.compile();
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Rejected tariff schedule " + schedule.getName(), e);
+            Metrics.stop(ADD_TARIFF_SCHEDULE, metricsStart);
+            return false;
+        }
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            insertTariffSchedule(db, schedule);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        synchronized (tariffLock) {
+            tariffCatalog = null;
+        }
+        Metrics.stop(ADD_TARIFF_SCHEDULE, metricsStart);
+        return true;
+    }
+
+    private static void insertTariffSchedule(SQLiteDatabase db, TariffSchedule schedule) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_UTILITY, schedule.getUtility());
+        values.put(COLUMN_NAME, schedule.getName());
+        values.put(COLUMN_EFFECTIVE_FROM, schedule.getEffectiveFrom());
+        long scheduleId = db.insertOrThrow(TABLE_TARIFF_SCHEDULES, null, values);
+
+        int[] limits = schedule.getLimits();
+        double[] rates = schedule.getRatesSen();
+        for (int i = 0; i < limits.length; i++) {
+            ContentValues block = new ContentValues();
+            block.put(COLUMN_SCHEDULE_ID, scheduleId);
+            block.put(COLUMN_BLOCK, i);
+            block.put(COLUMN_UPPER_KWH, limits[i]);
+            block.put(COLUMN_RATE_SEN, rates[i]);
+            db.insertOrThrow(TABLE_TARIFF_BLOCKS, null, block);
+        }
+    }
+
+    // Get every tariff schedule, in the order they were added
+    public ArrayList<TariffSchedule> getTariffSchedules() {
+        long metricsStart = Metrics.start();
+        ArrayList<TariffSchedule> schedules = new ArrayList<>();
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT s." + COLUMN_ID + ", s." + COLUMN_UTILITY + ", s." + COLUMN_NAME
+                + ", s." + COLUMN_EFFECTIVE_FROM + ", b." + COLUMN_UPPER_KWH + ", b." + COLUMN_RATE_SEN
+                + " FROM " + TABLE_TARIFF_SCHEDULES + " s JOIN " + TABLE_TARIFF_BLOCKS + " b"
+                + " ON b." + COLUMN_SCHEDULE_ID + " = s." + COLUMN_ID
+                + " ORDER BY s." + COLUMN_ID + ", b." + COLUMN_BLOCK, null);
+
+        // One row per block; collect the blocks of each schedule as its rows go by
+        long scheduleId = -1;
+        String utility = null;
+        String name = null;
+        long effectiveFrom = 0;
+        ArrayList<Integer> limits = new ArrayList<>();
+        ArrayList<Double> rates = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            if (cursor.getLong(0) != scheduleId) {
+                if (scheduleId != -1) {
+                    schedules.add(toSchedule(utility, name, effectiveFrom, limits, rates));
+                }
+                scheduleId = cursor.getLong(0);
+                utility = cursor.getString(1);
+                name = cursor.getString(2);
+                effectiveFrom = cursor.getLong(3);
+                limits.clear();
+                rates.clear();
+            }
+            limits.add(cursor.getInt(4));
+            rates.add(cursor.getDouble(5));
+        }
+        if (scheduleId != -1) {
+            schedules.add(toSchedule(utility, name, effectiveFrom, limits, rates));
+        }
+
+        cursor.close();
+        Metrics.stop(GET_TARIFF_SCHEDULES, metricsStart);
+        return schedules;
+    }
+
+    private static TariffSchedule toSchedule(String utility, String name, long effectiveFrom,
+                                             List<Integer> limits, List<Double> rates) {
+        int[] limitArray = new int[limits.size()];
+        double[] rateArray = new double[rates.size()];
+        for (int i = 0; i < limitArray.length; i++) {
+            limitArray[i] = limits.get(i);
+            rateArray[i] = rates.get(i);
+        }
+        return new TariffSchedule(utility, name, effectiveFrom, limitArray, rateArray);
+    }
+
+    // All tariff schedules, compiled. Built from the database once and then served from
+    // memory until a schedule is added.
+    public TariffCatalog getTariffCatalog() {
+        TariffCatalog catalog = tariffCatalog;
+        if (catalog == null) {
+            synchronized (tariffLock) {
+                if (tariffCatalog == null) {
+                    tariffCatalog = new TariffCatalog(getTariffSchedules());
+                }
+                catalog = tariffCatalog;
+            }
+        }
+        return catalog;
+    }
+
+    // Recalculate charges of every stored bill with the schedule of the default utility in
+    // effect for its month. Bills for which there is no schedule are left as they are.
+    // All rows are rewritten in a single transaction through one compiled statement.
+    public RerateResult rerateAll(TariffCatalog tariffs) {
+        long metricsStart = Metrics.start();
+        long start = System.nanoTime();
+        int rows = 0;
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_BILLS + " SET "
+                + COLUMN_TOTAL_CHARGES + "=?, " + COLUMN_FINAL_COST + "=? WHERE " + COLUMN_ID + "=?");
+        Cursor cursor = db.query(TABLE_BILLS,
+                new String[]{COLUMN_ID, COLUMN_UNITS, COLUMN_REBATE, COLUMN_MONTH, COLUMN_TIMESTAMP},
+                null, null, null, null, null);
+
+        db.beginTransaction();
+        try {
+            while (cursor.moveToNext()) {
+                TariffEngine tariff = tariffs.engineForBill(TariffCatalog.DEFAULT_UTILITY,
+                        cursor.getString(3), cursor.getLong(4));
+                if (tariff == null) {
+                    continue;
+                }
+                long totalChargesSen = tariff.calculateChargesSen(cursor.getDouble(1));
+                long finalCostSen = tariff.applyRebate(totalChargesSen, cursor.getDouble(2));
+
+                update.bindLong(1, totalChargesSen);
+                update.bindLong(2, finalCostSen);
+                update.bindLong(3, cursor.getLong(0));
+                update.executeUpdateDelete();
+                rows++;
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            cursor.close();
+            update.close();
+        }
+        billCache.clear();
+
+        RerateResult result = new RerateResult(rows, System.nanoTime() - start);
+        Log.i(TAG, "Re-rated " + result);
+        Metrics.stop(RERATE_ALL, metricsStart);
+        return result;
+    }
+
+    // Import meter readings, rating each row with the default utility's schedule in effect
+    // for its month; a row for which there is none is rejected. Rows are inserted
+    // through one compiled statement in transactions of IMPORT_BATCH_SIZE rows, so only
+    // one batch is ever uncommitted. Rejected rows are reported, not fatal. When the
+    // signal is cancelled, the batch in progress is committed and the import stops.
+    public ImportResult importBills(MeterReadingCsvReader reader, TariffCatalog tariffs,
+                                    ImportProgressListener listener,
+                                    CancellationSignal cancellationSignal) throws IOException {
+        long metricsStart = Metrics.start();
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        int rowsRead = 0;
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_BILLS + "("
+                + COLUMN_MONTH + ", " + COLUMN_UNITS + ", " + COLUMN_REBATE + ", "
+                + COLUMN_TOTAL_CHARGES + ", " + COLUMN_FINAL_COST + ", " + COLUMN_TIMESTAMP
+                + ") VALUES (?, ?, ?, ?, ?, ?)");
+        // Rows without a reading time are stamped with the time of the import
+        long importedAt = System.currentTimeMillis();
+
+        try {
+            boolean more = true;
+            while (more && !result.isCancelled()) {
+                int batchRows = 0;
+                db.beginTransaction();
+                try {
+                    while (batchRows < IMPORT_BATCH_SIZE) {
+                        if (cancellationSignal != null && cancellationSignal.isCanceled()) {
+                            result.setCancelled(true);
+                            break;
+                        }
+                        if (!reader.next()) {
+                            more = false;
+                            break;
+                        }
+                        rowsRead++;
+                        batchRows++;
+
+                        if (!reader.isValid()) {
+                            result.addError(reader.getLineNumber(), reader.getError());
+                            continue;
+                        }
+
+                        long timestamp = reader.getTimestampMillis();
+                        if (timestamp == MeterReadingCsvReader.NO_TIMESTAMP) {
+                            timestamp = importedAt;
+                        }
+                        TariffEngine tariff = tariffs.engineForBill(TariffCatalog.DEFAULT_UTILITY,
+                                reader.getMonth(), timestamp);
+                        if (tariff == null) {
+                            result.addError(reader.getLineNumber(), "No tariff for " + reader.getMonth());
+                            continue;
+                        }
+
+                        long totalChargesSen = tariff.calculateChargesSen(reader.getUnits());
+                        insert.bindString(1, reader.getMonth());
+                        insert.bindDouble(2, reader.getUnits());
+                        insert.bindDouble(3, reader.getRebate());
+                        insert.bindLong(4, totalChargesSen);
+                        insert.bindLong(5, tariff.applyRebate(totalChargesSen, reader.getRebate()));
+                        insert.bindLong(6, timestamp);
+                        insert.executeInsert();
+                        result.addImported();
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+
+                if (listener != null) {
+                    listener.onProgress(rowsRead, result.getImported());
+                }
+            }
+        } finally {
+            insert.close();
+        }
+
+        result.setElapsedNanos(System.nanoTime() - start);
+        Log.i(TAG, "Imported " + result);
+        Metrics.stop(IMPORT_BILLS, metricsStart);
+        return result;
+    }
+
+    // Append interval readings to the store, then bill every month they complete. Readings
+    // that start before the end of those already stored are taken to be a re-export and
+    // skipped; other rejected rows are reported, not fatal. Only the append buffer is held
+    // in memory however many readings the file has. When the signal is cancelled, the
+    // readings so far are kept and billed and the import stops.
+    public ImportResult importIntervals(IntervalCsvReader reader, IntervalStore store,
+                                        TariffCatalog tariffs, ImportProgressListener listener,
+                                        CancellationSignal cancellationSignal) throws IOException {
+        long metricsStart = Metrics.start();
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+        int rowsRead = 0;
+        long storedEnd = store.getEndMillis();
+
+        while (reader.next()) {
+            if (cancellationSignal != null && cancellationSignal.isCanceled()) {
+                result.setCancelled(true);
+                break;
+            }
+            rowsRead++;
+
+            if (!reader.isValid()) {
+                result.addError(reader.getLineNumber(), reader.getError());
+            } else if (storedEnd == IntervalStore.NONE || reader.getStartMillis() >= storedEnd) {
+                try {
+                    store.append(reader.getStartMillis(), reader.getWattHours());
+                    result.addImported();
+                } catch (IllegalArgumentException e) {
+                    result.addError(reader.getLineNumber(), e.getMessage());
+                }
+            }
+
+            if (listener != null && rowsRead % IMPORT_BATCH_SIZE == 0) {
+                listener.onProgress(rowsRead, result.getImported());
+            }
+        }
+        store.flush();
+        if (listener != null) {
+            listener.onProgress(rowsRead, result.getImported());
+        }
+
+        result.setBillsAdded(billIntervals(store, tariffs));
+        result.setElapsedNanos(System.nanoTime() - start);
+        Log.i(TAG, "Imported intervals " + result);
+        Metrics.stop(IMPORT_INTERVALS, metricsStart);
+        return result;
+    }
+
+    // Add a bill for every month the stored readings cover from start to end: every month
+    // before the one the last reading ends in, except a first month whose readings start
+    // after midnight on the 1st. The store only grows forwards, so that month can never be
+    // completed, and billing its partial readings would under-charge it. The readings are
+    // streamed from the store through a monthly rollup, so a month is the most ever summed
+    // at once. Each month is rated with the default utility's schedule in effect at its
+    // start, without a rebate, and stamped with the month's start; a month already billed
+    // that way is left alone, so billing the same store again adds nothing. Returns the
+    // number of bills added.
+    public int billIntervals(IntervalStore store, TariffCatalog tariffs) throws IOException {
+        long metricsStart = Metrics.start();
+        if (store.getCount() == 0) {
+            Metrics.stop(BILL_INTERVALS, metricsStart);
+            return 0;
+        }
+        long firstStart = store.getFirstStartMillis();
+        long billedFrom = firstStart == BillTimestamps.monthStart(firstStart)
+                ? firstStart : BillTimestamps.nextMonthStart(firstStart);
+        long billedTo = BillTimestamps.monthStart(store.getEndMillis());
+        int[] added = new int[1];
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement billed = db.compileStatement("SELECT COUNT(*) FROM " + TABLE_BILLS
+                + " WHERE " + COLUMN_MONTH + " = ? AND " + COLUMN_TIMESTAMP + " = ?");
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_BILLS + "("
+                + COLUMN_MONTH + ", " + COLUMN_UNITS + ", " + COLUMN_REBATE + ", "
+                + COLUMN_TOTAL_CHARGES + ", " + COLUMN_FINAL_COST + ", " + COLUMN_TIMESTAMP
+                + ") VALUES (?, ?, 0, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            MonthlyRollup.rollUp(store.cursor(billedFrom, billedTo), (monthStart, wattHours, intervals) -> {
+                String month = BillTimestamps.monthName(BillTimestamps.monthOf(monthStart));
+                billed.bindString(1, month);
+                billed.bindLong(2, monthStart);
+                if (billed.simpleQueryForLong() > 0) {
+                    return;
+                }
+                TariffEngine tariff = tariffs.engineFor(TariffCatalog.DEFAULT_UTILITY, monthStart);
+                if (tariff == null) {
+                    Log.w(TAG, "No tariff for " + month + " " + BillTimestamps.formatDate(monthStart));
+                    return;
+                }
+
+                double units = wattHours / 1000.0;
+                long totalChargesSen = tariff.calculateChargesSen(units);
+                insert.bindString(1, month);
+                insert.bindDouble(2, units);
+                insert.bindLong(3, totalChargesSen);
+                insert.bindLong(4, tariff.applyRebate(totalChargesSen, 0));
+                insert.bindLong(5, monthStart);
+                insert.executeInsert();
+                added[0]++;
+            });
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            billed.close();
+            insert.close();
+        }
+
+        Log.i(TAG, "Billed " + added[0] + " months of intervals");
+        Metrics.stop(BILL_INTERVALS, metricsStart);
+        return added[0];
+    }
+
+    // Write every bill, oldest first, straight from a cursor to the export writer. The
+    // cursor reads the table one window at a time, so memory use stays flat however many
+    // bills there are. Returns the number of rows written, up to a cancellation.
+    public int exportBills(BillExportWriter writer, CancellationSignal cancellationSignal)
+            throws IOException {
+        long metricsStart = Metrics.start();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_BILLS,
+                new String[]{COLUMN_ID, COLUMN_MONTH, COLUMN_UNITS, COLUMN_REBATE,
+                        COLUMN_TOTAL_CHARGES, COLUMN_FINAL_COST, COLUMN_TIMESTAMP},
+                null, null, null, null,
+                COLUMN_TIMESTAMP + ", " + COLUMN_ID);
+
+        try {
+            while (cursor.moveToNext()) {
+                if (cancellationSignal != null && cancellationSignal.isCanceled()) {
+                    break;
+                }
+                writer.writeRow(
+                        cursor.getLong(0),
+                        cursor.getString(1),
+                        cursor.getDouble(2),
+                        cursor.getDouble(3),
+                        cursor.getLong(4),
+                        cursor.getLong(5),
+                        cursor.getLong(6)
+                );
+            }
+            writer.flush();
+        } finally {
+            cursor.close();
+        }
+        Metrics.stop(EXPORT_BILLS, metricsStart);
+        return writer.getRowCount();
+    }
+
+    // Monthly totals, one row per (year, month) that has bills, oldest first.
+    // Reads only the summary table, so the cost does not grow with the number of bills.
+    public ArrayList<BillSummary> getMonthlySummaries() {
+        long metricsStart = Metrics.start();
+        ArrayList<BillSummary> summaries = new ArrayList<>();
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_SUMMARY,
+                new String[]{COLUMN_YEAR, COLUMN_MONTH, COLUMN_BILL_COUNT, COLUMN_TOTAL_UNITS,
+                        COLUMN_TOTAL_CHARGES, COLUMN_TOTAL_FINAL_COST, COLUMN_TOTAL_REBATE},
+                null, null, null, null, null);
+
+        while (cursor.moveToNext()) {
+            summaries.add(new BillSummary(
+                    cursor.getInt(0),
+                    cursor.getString(1),
+                    cursor.getInt(2),
+                    cursor.getDouble(3),
+                    cursor.getLong(4),
+                    cursor.getLong(5),
+                    cursor.getDouble(6)
+            ));
+        }
+        cursor.close();
+
+        // Month names do not sort in calendar order, so order in memory
+        Collections.sort(summaries, (a, b) -> a.getYear() != b.getYear()
+                ? Integer.compare(a.getYear(), b.getYear())
+                : Integer.compare(MONTHS.indexOf(a.getMonth()), MONTHS.indexOf(b.getMonth())));
+        Metrics.stop(GET_MONTHLY_SUMMARIES, metricsStart);
+        return summaries;
+    }
+
+    // Yearly totals, one row per year that has bills, oldest first; month is null
+    public ArrayList<BillSummary> getYearlySummaries() {
+        long metricsStart = Metrics.start();
+        ArrayList<BillSummary> summaries = new ArrayList<>();
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_YEAR + ", "
+                + "SUM(" + COLUMN_BILL_COUNT + "), SUM(" + COLUMN_TOTAL_UNITS + "), "
+                + "SUM(" + COLUMN_TOTAL_CHARGES + "), SUM(" + COLUMN_TOTAL_FINAL_COST + "), "
+                + "SUM(" + COLUMN_TOTAL_REBATE + ") FROM " + TABLE_SUMMARY
+                + " GROUP BY " + COLUMN_YEAR + " ORDER BY " + COLUMN_YEAR, null);
+
+        while (cursor.moveToNext()) {
+            summaries.add(new BillSummary(
+                    cursor.getInt(0),
+                    null,
+                    cursor.getInt(1),
+                    cursor.getDouble(2),
+                    cursor.getLong(3),
+                    cursor.getLong(4),
+                    cursor.getDouble(5)
+            ));
+        }
+
+        cursor.close();
+        Metrics.stop(GET_YEARLY_SUMMARIES, metricsStart);
+        return summaries;
+    }
+
+    // Check the summary table against totals recomputed from every bill
+    public boolean verifySummaries() {
+        long metricsStart = Metrics.start();
+        String expected = "(" + summariesFromBills() + ")";
+        String differs = "s." + COLUMN_BILL_COUNT + " IS NOT e." + COLUMN_BILL_COUNT
+                + " OR ABS(s." + COLUMN_TOTAL_UNITS + " - e." + COLUMN_TOTAL_UNITS + ") > 0.001"
+                + " OR s." + COLUMN_TOTAL_CHARGES + " IS NOT e." + COLUMN_TOTAL_CHARGES
+                + " OR s." + COLUMN_TOTAL_FINAL_COST + " IS NOT e." + COLUMN_TOTAL_FINAL_COST
+                + " OR ABS(s." + COLUMN_TOTAL_REBATE + " - e." + COLUMN_TOTAL_REBATE + ") > 0.001";
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT"
+                + " (SELECT COUNT(*) FROM " + expected + " e LEFT JOIN " + TABLE_SUMMARY + " s"
+                + " ON s." + COLUMN_YEAR + " = e." + COLUMN_YEAR + " AND s." + COLUMN_MONTH + " = e." + COLUMN_MONTH
+                + " WHERE " + differs + "),"
+                + " (SELECT COUNT(*) FROM " + TABLE_SUMMARY + ") - (SELECT COUNT(*) FROM " + expected + ")",
+                null);
+
+        boolean consistent = false;
+        if (cursor.moveToFirst()) {
+            consistent = cursor.getLong(0) == 0 && cursor.getLong(1) == 0;
+        }
+        cursor.close();
+        Metrics.stop(VERIFY_SUMMARIES, metricsStart);
+        return consistent;
+    }
+
+    // Throw away the summary table contents and recompute them from every bill
+    public void rebuildSummaries() {
+        long metricsStart = Metrics.start();
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_SUMMARY, null, null);
+            fillSummaries(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Metrics.stop(REBUILD_SUMMARIES, metricsStart);
+    }
+
+    // Verify the summaries and rebuild them if they have drifted; returns whether they had to be rebuilt
+    public boolean checkAndRepairSummaries() {
+        if (verifySummaries()) {
+            return false;
+        }
+        Log.w(TAG, "Bill summaries out of step with bills, rebuilding");
+        rebuildSummaries();
+        return true;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.electricitybillcalculator;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import com.example.electricitybillcalculator.core.Metrics;
+
+public class ElectricityBillApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Latency metrics are collected in debuggable builds only. Set here rather than in
+        // an activity so it holds whichever component the process is started for.
+        Metrics.setEnabled((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+    }
+}
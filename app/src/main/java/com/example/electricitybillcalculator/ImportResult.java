@@ -0,0 +1,79 @@
+package com.example.electricitybillcalculator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ImportResult {
+    // Only the first errors are kept so a badly broken file cannot exhaust memory
+    public static final int MAX_REPORTED_ERRORS = 500;
+
+    private int imported;
+    private int rejected;
+    private int billsAdded;
+    private boolean cancelled;
+    private long elapsedNanos;
+    private final ArrayList<String> errors = new ArrayList<>();
+
+    void addImported() {
+        imported++;
+    }
+
+    void addError(int lineNumber, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("Line " + lineNumber + ": " + message);
+        }
+    }
+
+    void setBillsAdded(int billsAdded) {
+        this.billsAdded = billsAdded;
+    }
+
+    void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    // Bills generated from the rows, for imports of interval readings
+    public int getBillsAdded() {
+        return billsAdded;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // First MAX_REPORTED_ERRORS rejected rows, as "Line n: reason"
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return (imported + rejected) * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return imported + " imported, " + rejected + " rejected in " + getElapsedMillis() + " ms ("
+                + Math.round(getRowsPerSecond()) + " rows/s)" + (cancelled ? ", cancelled" : "");
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.electricitybillcalculator;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
@@ -15,13 +16,20 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import com.example.electricitybillcalculator.core.LatencyHistogram;
+import com.example.electricitybillcalculator.core.Metrics;
+import com.example.electricitybillcalculator.core.MoneyFormatter;
+import com.example.electricitybillcalculator.core.TariffCatalog;
+import com.example.electricitybillcalculator.core.TariffEngine;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
-import java.text.DecimalFormat;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final LatencyHistogram ON_CREATE = Metrics.histogram("MainActivity.onCreate");
+    private static final LatencyHistogram TARIFF_RATE = Metrics.histogram("tariff.rate");
+
     private Spinner monthSpinner;
     private TextInputEditText unitsEditText;
     private TextInputLayout unitsInputLayout;
@@ -30,26 +38,34 @@ public class MainActivity extends AppCompatActivity {
     private TextView resultMonth, resultTotalCharges, resultRebate, resultFinalCost;
     private Button calculateButton, saveButton, historyButton, aboutButton;
 
-    private DatabaseHelper databaseHelper;
+    private BillRepository billRepository;
     private String selectedMonth = "";
-    private double calculatedTotalCharges = 0;
-    private double calculatedFinalCost = 0;
+    private boolean calculated = false;
+    private long calculatedTotalChargesSen = 0;
+    private long calculatedFinalCostSen = 0;
     private double selectedRebate = 0;
 
-    // Rate table (sen per kWh)
-    private static final double RATE_1 = 21.8; // First 200 kWh
-    private static final double RATE_2 = 33.4; // Next 100 kWh (201-300)
-    private static final double RATE_3 = 51.6; // Next 300 kWh (301-600)
-    private static final double RATE_4 = 54.6; // Next 300 kWh (601-1000)
+    // One per amount view, reused on every calculation
+    private final MoneyFormatter totalChargesFormatter = new MoneyFormatter();
+    private final MoneyFormatter finalCostFormatter = new MoneyFormatter();
+
+    // Tariff schedules; the built-in tariff until the stored ones have loaded
+    private TariffCatalog tariffs = TariffCatalog.builtIn();
 
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        long metricsStart = Metrics.start();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
         // Initialize database
-        databaseHelper = new DatabaseHelper(this);
+        billRepository = BillRepository.getInstance(this);
+        // Warmed up behind the splash screen, so this comes straight from memory
+        billRepository.getTariffCatalog(this, catalog -> {
+            tariffs = catalog;
+            StartupTrace.markInteractive(this);
+        });
 
         // Setup toolbar
         Toolbar toolbar = findViewById(R.id.toolbar);
@@ -80,6 +96,7 @@ public class MainActivity extends AppCompatActivity {
         setupRadioGroupListener();
 
         Toast.makeText(this, "App Started Successfully!", Toast.LENGTH_SHORT).show();
+        Metrics.stop(ON_CREATE, metricsStart);
     }
 
     private void initializeViews() {
@@ -176,6 +193,14 @@ public class MainActivity extends AppCompatActivity {
             Intent intent = new Intent(MainActivity.this, AboutActivity.class);
             startActivity(intent);
         });
+
+        // Long press opens the metrics screen in debuggable builds
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            aboutButton.setOnLongClickListener(v -> {
+                startActivity(new Intent(MainActivity.this, MetricsActivity.class));
+                return true;
+            });
+        }
     }
 
     private boolean validateInputs() {
@@ -229,9 +254,18 @@ public class MainActivity extends AppCompatActivity {
         try {
             double units = Double.parseDouble(unitsEditText.getText().toString().trim());
 
-            // Calculate charges based on block rates
-            calculatedTotalCharges = calculateCharges(units);
-            calculatedFinalCost = calculatedTotalCharges - (calculatedTotalCharges * selectedRebate / 100);
+            // Calculate charges with the schedule in effect for the selected month
+            long metricsStart = Metrics.start();
+            TariffEngine tariff = tariffs.engineForBill(TariffCatalog.DEFAULT_UTILITY,
+                    selectedMonth, System.currentTimeMillis());
+            if (tariff == null) {
+                Toast.makeText(this, "No tariff for " + selectedMonth, Toast.LENGTH_SHORT).show();
+                return;
+            }
+            calculatedTotalChargesSen = tariff.calculateChargesSen(units);
+            calculatedFinalCostSen = tariff.applyRebate(calculatedTotalChargesSen, selectedRebate);
+            Metrics.stop(TARIFF_RATE, metricsStart);
+            calculated = true;
 
             // Display results
             displayResults(units, selectedRebate);
@@ -241,46 +275,24 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private double calculateCharges(double units) {
-        double charges = 0;
-
-        if (units > 600) {
-            double block4 = Math.min(units - 600, 300);
-            charges += block4 * RATE_4 / 100;
-            units -= block4;
-        }
-
-        if (units > 300) {
-            double block3 = Math.min(units - 300, 300);
-            charges += block3 * RATE_3 / 100;
-            units -= block3;
-        }
-
-        if (units > 200) {
-            double block2 = Math.min(units - 200, 100);
-            charges += block2 * RATE_2 / 100;
-            units -= block2;
-        }
-
-        charges += units * RATE_1 / 100;
-
-        return charges;
-    }
-
     private void displayResults(double units, double rebate) {
-        DecimalFormat df = new DecimalFormat("#,##0.00");
-
         resultMonth.setText(selectedMonth);
-        resultTotalCharges.setText("RM " + df.format(calculatedTotalCharges));
+        showAmount(resultTotalCharges, totalChargesFormatter, calculatedTotalChargesSen);
         resultRebate.setText(rebate + "%");
-        resultFinalCost.setText("RM " + df.format(calculatedFinalCost));
+        showAmount(resultFinalCost, finalCostFormatter, calculatedFinalCostSen);
 
         resultsCard.setVisibility(View.VISIBLE);
         saveButton.setVisibility(View.VISIBLE);
     }
 
+    // Show an amount through the view's own formatter, which TextView reads from directly
+    private static void showAmount(TextView view, MoneyFormatter formatter, long sen) {
+        int length = formatter.format(sen);
+        view.setText(formatter.getChars(), 0, length);
+    }
+
     private void saveBill() {
-        if (selectedMonth.isEmpty() || calculatedFinalCost == 0) {
+        if (selectedMonth.isEmpty() || !calculated) {
             Toast.makeText(this, "Please calculate bill first", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -292,25 +304,23 @@ public class MainActivity extends AppCompatActivity {
             bill.setMonth(selectedMonth);
             bill.setUnits(units);
             bill.setRebate(selectedRebate);
-            bill.setTotalCharges(calculatedTotalCharges);
-            bill.setFinalCost(calculatedFinalCost);
-
-            if (databaseHelper.addBill(bill)) {
-                Toast.makeText(this, "Bill saved to history", Toast.LENGTH_SHORT).show();
-                saveButton.setEnabled(false);
-                saveButton.setText("Saved");
-            } else {
-                Toast.makeText(this, "Failed to save bill", Toast.LENGTH_SHORT).show();
-            }
+            bill.setTotalChargesSen(calculatedTotalChargesSen);
+            bill.setFinalCostSen(calculatedFinalCostSen);
+
+            // Disable while saving so a double tap cannot insert the bill twice
+            saveButton.setEnabled(false);
+            billRepository.addBill(this, bill, saved -> {
+                if (saved) {
+                    Toast.makeText(this, "Bill saved to history", Toast.LENGTH_SHORT).show();
+                    saveButton.setText("Saved");
+                } else {
+                    Toast.makeText(this, "Failed to save bill", Toast.LENGTH_SHORT).show();
+                    saveButton.setEnabled(true);
+                }
+            });
 
         } catch (NumberFormatException e) {
             Toast.makeText(this, "Invalid data", Toast.LENGTH_SHORT).show();
         }
     }
-
-    @Override
-    protected void onDestroy() {
-        databaseHelper.close();
-        super.onDestroy();
-    }
 }
\ No newline at end of file
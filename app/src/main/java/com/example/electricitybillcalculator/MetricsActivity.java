@@ -0,0 +1,71 @@
+package com.example.electricitybillcalculator;
+
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+import com.example.electricitybillcalculator.core.Metrics;
+import com.google.android.material.switchmaterial.SwitchMaterial;
+
+/**
+ * Debug screen for the latency histograms and counters: switch collection on or off,
+ * reset the histograms, and dump the p50/p99/max report to a file in the app's external
+ * files directory. Reachable from a long press on About in debuggable builds only.
+ */
+public class MetricsActivity extends AppCompatActivity {
+
+    private TextView textViewReport;
+    private BillRepository billRepository;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+
+        // Setup toolbar
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        // Setup back navigation
+        toolbar.setNavigationOnClickListener(v -> finish());
+
+        billRepository = BillRepository.getInstance(this);
+        textViewReport = findViewById(R.id.textViewReport);
+
+        SwitchMaterial switchEnabled = findViewById(R.id.switchEnabled);
+        switchEnabled.setChecked(Metrics.isEnabled());
+        switchEnabled.setOnCheckedChangeListener((buttonView, isChecked) -> Metrics.setEnabled(isChecked));
+
+        Button resetButton = findViewById(R.id.resetButton);
+        resetButton.setOnClickListener(v -> {
+            Metrics.resetHistograms();
+            showReport();
+        });
+
+        Button dumpButton = findViewById(R.id.dumpButton);
+        dumpButton.setOnClickListener(v -> dumpReport());
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showReport();
+    }
+
+    private void showReport() {
+        textViewReport.setText(Metrics.report());
+    }
+
+    private void dumpReport() {
+        billRepository.dumpMetrics(this, getExternalFilesDir(null), file -> {
+            if (file == null) {
+                Toast.makeText(this, "Failed to write metrics", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "Metrics written to " + file.getPath(), Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+}
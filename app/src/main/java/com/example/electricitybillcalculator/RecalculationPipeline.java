@@ -0,0 +1,161 @@
+package com.example.electricitybillcalculator;
+
+import android.os.Handler;
+import android.os.Looper;
+import com.example.electricitybillcalculator.core.Metrics;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Turns a stream of input changes into at most one recalculation per debounce window.
+ *
+ * <p>Each change only pushes the pending recalculation back, so a burst of keystrokes is
+ * read, parsed and calculated once, after typing pauses. When it runs, inputs that are
+ * invalid (NaN) or equal to the last ones calculated are skipped. Must be used on the
+ * main thread. Its counters are also published to {@link Metrics}, summed over every
+ * screen that uses a pipeline.
+ */
+public class RecalculationPipeline {
+
+    public interface Calculation {
+        void calculate(double units, double rebate);
+    }
+
+    // Posts the debounced run; a Handler on the main thread outside of tests
+    interface Scheduler {
+        void postDelayed(Runnable task, long delayMillis);
+
+        void remove(Runnable task);
+    }
+
+    private static final Metrics.Counter INPUT_EVENTS = Metrics.counter("recalc.inputEvents");
+    private static final Metrics.Counter CALCULATIONS = Metrics.counter("recalc.calculations");
+    private static final Metrics.Counter UNCHANGED = Metrics.counter("recalc.unchanged");
+
+    private final Scheduler scheduler;
+    private final Runnable pending = this::run;
+    private final long debounceMillis;
+    private final DoubleSupplier units;
+    private final DoubleSupplier rebate;
+    private final Calculation calculation;
+
+    private boolean scheduled;
+    private double lastUnits = Double.NaN;
+    private double lastRebate = Double.NaN;
+
+    private int inputEvents;
+    private int calculations;
+    private int unchanged;
+
+    // units and rebate read the current inputs, returning NaN when they are not valid
+    public RecalculationPipeline(long debounceMillis, DoubleSupplier units, DoubleSupplier rebate,
+                                 Calculation calculation) {
+        this(mainThreadScheduler(), debounceMillis, units, rebate, calculation);
+    }
+
+    RecalculationPipeline(Scheduler scheduler, long debounceMillis, DoubleSupplier units,
+                          DoubleSupplier rebate, Calculation calculation) {
+        this.scheduler = scheduler;
+        this.debounceMillis = debounceMillis;
+        this.units = units;
+        this.rebate = rebate;
+        this.calculation = calculation;
+    }
+
+    private static Scheduler mainThreadScheduler() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        return new Scheduler() {
+            @Override
+            public void postDelayed(Runnable task, long delayMillis) {
+                handler.postDelayed(task, delayMillis);
+            }
+
+            @Override
+            public void remove(Runnable task) {
+                handler.removeCallbacks(task);
+            }
+        };
+    }
+
+    // An input is still being edited: recalculate once it has been left alone for a while
+    public void onInputChanged() {
+        inputEvents++;
+        INPUT_EVENTS.increment();
+        scheduler.remove(pending);
+        scheduler.postDelayed(pending, debounceMillis);
+        scheduled = true;
+    }
+
+    // A discrete choice was made: recalculate straight away
+    public void onInputCommitted() {
+        inputEvents++;
+        INPUT_EVENTS.increment();
+        run();
+    }
+
+    // Run a pending recalculation now, e.g. before the result is saved
+    public void flush() {
+        if (scheduled) {
+            run();
+        }
+    }
+
+    // Drop a pending recalculation; call when the screen goes away
+    public void cancel() {
+        scheduler.remove(pending);
+        scheduled = false;
+    }
+
+    // Forget the last inputs calculated, so the next run recalculates even if they are the
+    // same; call when something else the calculation depends on has changed
+    public void invalidate() {
+        lastUnits = Double.NaN;
+        lastRebate = Double.NaN;
+    }
+
+    // Something other than the inputs that the calculation depends on has changed:
+    // recalculate the current inputs now. Not counted as an input change.
+    public void recalculate() {
+        invalidate();
+        run();
+    }
+
+    private void run() {
+        cancel();
+        double currentUnits = units.getAsDouble();
+        double currentRebate = rebate.getAsDouble();
+        if (Double.isNaN(currentUnits) || Double.isNaN(currentRebate)) {
+            return;
+        }
+        if (currentUnits == lastUnits && currentRebate == lastRebate) {
+            unchanged++;
+            UNCHANGED.increment();
+            return;
+        }
+        lastUnits = currentUnits;
+        lastRebate = currentRebate;
+        calculations++;
+        CALCULATIONS.increment();
+        calculation.calculate(currentUnits, currentRebate);
+    }
+
+    /** Input changes reported so far. */
+    public int getInputEvents() {
+        return inputEvents;
+    }
+
+    /** Recalculations actually performed. */
+    public int getCalculations() {
+        return calculations;
+    }
+
+    /** Recalculations skipped because the inputs had not changed. */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    @Override
+    public String toString() {
+        return calculations + " recalculations for " + inputEvents + " input changes ("
+                + unchanged + " unchanged)";
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.electricitybillcalculator;
+
+public class RerateResult {
+    private final int rows;
+    private final long elapsedNanos;
+
+    public RerateResult(int rows, long elapsedNanos) {
+        this.rows = rows;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        if (elapsedNanos <= 0) {
+            return 0;
+        }
+        return rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return rows + " bills in " + getElapsedMillis() + " ms ("
+                + Math.round(getRowsPerSecond()) + " rows/s)";
+    }
+}
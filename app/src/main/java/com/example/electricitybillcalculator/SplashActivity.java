@@ -1,21 +1,27 @@
 package com.example.electricitybillcalculator;
 
-import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
+import androidx.appcompat.app.AppCompatActivity;
+import com.example.electricitybillcalculator.core.LatencyHistogram;
+import com.example.electricitybillcalculator.core.Metrics;
 
-public class SplashActivity extends Activity {
+public class SplashActivity extends AppCompatActivity {
+
+    private static final LatencyHistogram ON_CREATE = Metrics.histogram("SplashActivity.onCreate");
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        long metricsStart = Metrics.start();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
+        StartupTrace.markFirstFrame(this);
 
-        // Delay 2 seconds sebelum masuk MainActivity
-        new Handler().postDelayed(() -> {
+        // Stay only while the database opens and the tariffs load, then hand over
+        BillRepository.getInstance(this).warmUp(this, ready -> {
             startActivity(new Intent(SplashActivity.this, MainActivity.class));
             finish();
-        }, 2000);
+        });
+        Metrics.stop(ON_CREATE, metricsStart);
     }
-}
\ No newline at end of file
+}
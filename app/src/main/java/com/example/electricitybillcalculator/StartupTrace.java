@@ -0,0 +1,71 @@
+package com.example.electricitybillcalculator;
+
+import android.app.Activity;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Cold-start markers, in milliseconds since the process was started.
+ *
+ * <p>Time to first frame is when the first activity's first frame is about to be drawn;
+ * time to interactive is when the calculator screen is set up with its tariffs loaded.
+ * Each is logged once per process under the tag {@code Startup}. Interactive is also
+ * reported to the system with {@link Activity#reportFullyDrawn()}, which the startup
+ * macrobenchmark reads as time to full display, and the warm-up work runs inside the
+ * {@link #SECTION_WARM_UP} trace section. Call from the main thread.
+ */
+public final class StartupTrace {
+    private static final String TAG = "Startup";
+
+    // Trace section around the database and tariff warm-up behind the splash screen
+    public static final String SECTION_WARM_UP = "StartupWarmUp";
+
+    private static long firstFrameMillis = -1;
+    private static long interactiveMillis = -1;
+
+    private StartupTrace() {
+    }
+
+    // Milliseconds since the process was started
+    public static long sinceProcessStart() {
+        return SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+    }
+
+    // Record time to first frame just before the activity's first frame is drawn
+    public static void markFirstFrame(Activity activity) {
+        View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                if (firstFrameMillis < 0) {
+                    firstFrameMillis = sinceProcessStart();
+                    Log.i(TAG, "First frame after " + firstFrameMillis + " ms");
+                }
+                return true;
+            }
+        });
+    }
+
+    // Record time to interactive and tell the system the activity is fully drawn
+    public static void markInteractive(Activity activity) {
+        activity.reportFullyDrawn();
+        if (interactiveMillis < 0) {
+            interactiveMillis = sinceProcessStart();
+            Log.i(TAG, "Interactive after " + interactiveMillis + " ms");
+        }
+    }
+
+    /** Time to first frame, or -1 before it has been drawn. */
+    public static long getFirstFrameMillis() {
+        return firstFrameMillis;
+    }
+
+    /** Time to interactive, or -1 before the app is interactive. */
+    public static long getInteractiveMillis() {
+        return interactiveMillis;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.electricitybillcalculator;
+
+import com.example.electricitybillcalculator.core.Metrics;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RecalculationPipelineTest {
+
+    // Stands in for the main-thread Handler: the posted run waits until the test fires it
+    private static final class FakeScheduler implements RecalculationPipeline.Scheduler {
+        Runnable task;
+        long delayMillis;
+
+        @Override
+        public void postDelayed(Runnable task, long delayMillis) {
+            this.task = task;
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void remove(Runnable task) {
+            if (this.task == task) {
+                this.task = null;
+            }
+        }
+
+        void fire() {
+            Runnable due = task;
+            task = null;
+            if (due != null) {
+                due.run();
+            }
+        }
+    }
+
+    private final FakeScheduler scheduler = new FakeScheduler();
+    private final List<double[]> calculated = new ArrayList<>();
+    private double units = 100;
+    private double rebate = 0;
+    private RecalculationPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        pipeline = new RecalculationPipeline(scheduler, 150, () -> units, () -> rebate,
+                (u, r) -> calculated.add(new double[]{u, r}));
+    }
+
+    @Test
+    public void burstOfChangesIsCalculatedOnceAfterThePause() {
+        Metrics.setEnabled(true);
+        long before = Metrics.counter("recalc.calculations").getCount();
+        try {
+            for (int i = 1; i <= 5; i++) {
+                units = 100 + i;
+                pipeline.onInputChanged();
+            }
+            assertTrue(calculated.isEmpty());
+            assertEquals(150, scheduler.delayMillis);
+
+            scheduler.fire();
+            assertEquals(1, calculated.size());
+            assertEquals(105, calculated.get(0)[0], 0);
+            assertEquals(5, pipeline.getInputEvents());
+            assertEquals(1, pipeline.getCalculations());
+            assertEquals(before + 1, Metrics.counter("recalc.calculations").getCount());
+        } finally {
+            Metrics.setEnabled(false);
+        }
+    }
+
+    @Test
+    public void unchangedInputsAreSkipped() {
+        pipeline.onInputCommitted();
+        pipeline.onInputCommitted();
+        pipeline.onInputChanged();
+        scheduler.fire();
+        rebate = 5;
+        pipeline.onInputCommitted();
+
+        assertEquals(4, pipeline.getInputEvents());
+        assertEquals(2, pipeline.getCalculations());
+        assertEquals(2, pipeline.getUnchanged());
+        assertEquals(5, calculated.get(1)[1], 0);
+    }
+
+    @Test
+    public void invalidInputsAreNeitherCalculatedNorCountedUnchanged() {
+        units = Double.NaN;
+        pipeline.onInputCommitted();
+
+        assertTrue(calculated.isEmpty());
+        assertEquals(0, pipeline.getUnchanged());
+    }
+
+    @Test
+    public void flushRunsOnlyAPendingRecalculation() {
+        pipeline.flush();
+        assertTrue(calculated.isEmpty());
+
+        pipeline.onInputChanged();
+        pipeline.flush();
+        assertEquals(1, calculated.size());
+        assertNull(scheduler.task);
+
+        pipeline.flush();
+        assertEquals(1, pipeline.getCalculations());
+        assertEquals(0, pipeline.getUnchanged());
+    }
+
+    @Test
+    public void invalidateRecalculatesTheSameInputs() {
+        pipeline.onInputCommitted();
+        pipeline.invalidate();
+        pipeline.onInputCommitted();
+
+        assertEquals(2, pipeline.getCalculations());
+        assertEquals(0, pipeline.getUnchanged());
+    }
+
+    @Test
+    public void recalculateRedoesTheSameInputsWithoutCountingAnInput() {
+        pipeline.onInputChanged();
+        pipeline.recalculate();
+        scheduler.fire();
+
+        assertEquals(1, pipeline.getInputEvents());
+        assertEquals(1, pipeline.getCalculations());
+        pipeline.recalculate();
+        assertEquals(2, pipeline.getCalculations());
+        assertEquals(0, pipeline.getUnchanged());
+    }
+
+    @Test
+    public void cancelDropsThePendingRecalculation() {
+        pipeline.onInputChanged();
+        pipeline.cancel();
+        scheduler.fire();
+        pipeline.flush();
+
+        assertTrue(calculated.isEmpty());
+    }
+}
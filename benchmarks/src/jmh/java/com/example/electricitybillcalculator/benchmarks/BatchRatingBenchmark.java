@@ -0,0 +1,65 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.TariffEngine;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Rating every bill of an array, with its own rebate, one bill at a time through the
+ * scalar calculateChargesSen and applyRebate against the batch TariffEngine.rate kernel.
+ * Divide the score by the bill count for the cost per bill. 100M bills take 3.2 GB of
+ * arrays, hence the larger heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4500m")
+public class BatchRatingBenchmark {
+
+    @Param({"1000", "1000000", "100000000"})
+    public int bills;
+
+    private final TariffEngine engine = TariffEngine.domestic();
+    private double[] units;
+    private double[] rebates;
+    private long[] totalChargesSen;
+    private long[] finalCostSen;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(24);
+        units = new double[bills];
+        rebates = new double[bills];
+        for (int i = 0; i < bills; i++) {
+            units[i] = random.nextInt(12000) / 10.0;
+            rebates[i] = random.nextInt(6);
+        }
+        totalChargesSen = new long[bills];
+        finalCostSen = new long[bills];
+    }
+
+    @Benchmark
+    public long[] scalar() {
+        for (int i = 0; i < bills; i++) {
+            long chargesSen = engine.calculateChargesSen(units[i]);
+            totalChargesSen[i] = chargesSen;
+            finalCostSen[i] = engine.applyRebate(chargesSen, rebates[i]);
+        }
+        return finalCostSen;
+    }
+
+    @Benchmark
+    public long[] batch() {
+        engine.rate(units, rebates, totalChargesSen, finalCostSen, bills);
+        return finalCostSen;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.BillColumns;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Bill history as a list of row objects, the way getAllBills returns it, against the
+ * columnar BillColumns snapshot.
+ *
+ * <p>The scan benchmarks time one aggregate over every bill. The build benchmarks create
+ * the whole structure, so running them with {@code -PjmhProfilers=gc} reports its memory
+ * footprint as bytes allocated per operation (plus the list's growth garbage, as
+ * getAllBills also has). Row mirrors the app's BillModel, which this module cannot see,
+ * including a month String per row as the cursor returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BillColumnsBenchmark {
+
+    private static final String[] MONTHS = {"January", "February", "March", "April", "May",
+            "June", "July", "August", "September", "October", "November", "December"};
+
+    // Same fields as BillModel
+    static final class Row {
+        final int id;
+        final String month;
+        final double units;
+        final double rebate;
+        final long totalChargesSen;
+        final long finalCostSen;
+        final long timestamp;
+
+        Row(int id, String month, double units, double rebate,
+            long totalChargesSen, long finalCostSen, long timestamp) {
+            this.id = id;
+            this.month = month;
+            this.units = units;
+            this.rebate = rebate;
+            this.totalChargesSen = totalChargesSen;
+            this.finalCostSen = finalCostSen;
+            this.timestamp = timestamp;
+        }
+    }
+
+    @Param({"100000"})
+    public int bills;
+
+    private double[] units;
+    private long[] costs;
+    private List<Row> rows;
+    private BillColumns columns;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(19);
+        units = new double[bills];
+        costs = new long[bills];
+        for (int i = 0; i < bills; i++) {
+            units[i] = 1 + random.nextInt(1000);
+            costs[i] = Math.round(units[i] * 40);
+        }
+        rows = buildRows();
+        columns = buildColumns();
+    }
+
+    @Benchmark
+    public List<Row> buildRows() {
+        List<Row> list = new ArrayList<>();
+        for (int i = 0; i < bills; i++) {
+            // A cursor hands out a new String, with its own characters, for every row
+            list.add(new Row(i, new String(MONTHS[i % 12].toCharArray()), units[i], i % 6,
+                    costs[i], costs[i], 1735689600000L + i * 60_000L));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public BillColumns buildColumns() {
+        BillColumns.Builder builder = new BillColumns.Builder(bills);
+        for (int i = 0; i < bills; i++) {
+            builder.add(i, 1 + i % 12, units[i], i % 6, costs[i], costs[i], 1735689600000L + i * 60_000L);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public double sumUnitsRows() {
+        double sum = 0;
+        for (Row row : rows) {
+            sum += row.units;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sumUnitsColumns() {
+        return columns.sumUnits();
+    }
+
+    @Benchmark
+    public long sumFinalCostRows() {
+        long sum = 0;
+        for (Row row : rows) {
+            sum += row.finalCostSen;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumFinalCostColumns() {
+        return columns.sumFinalCostSen();
+    }
+
+    @Benchmark
+    public long maxFinalCostRows() {
+        long max = Long.MIN_VALUE;
+        for (Row row : rows) {
+            max = Math.max(max, row.finalCostSen);
+        }
+        return max;
+    }
+
+    @Benchmark
+    public long maxFinalCostColumns() {
+        return columns.maxFinalCostSen();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.MeterReadingCsvReader;
+import com.example.electricitybillcalculator.core.TariffEngine;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Rows per second through the CSV import path short of the database: parse each row
+ * with MeterReadingCsvReader and rate it with the domestic tariff.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvImportBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final String[] MONTHS = {"January", "February", "March", "April", "May",
+            "June", "July", "August", "September", "October", "November", "December"};
+
+    private final TariffEngine engine = TariffEngine.domestic();
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder("month,units,rebate,timestamp\n");
+        for (int i = 0; i < ROWS; i++) {
+            sb.append(MONTHS[i % 12]).append(',')
+                    .append(1 + i % 1000).append('.').append(i % 10).append(',')
+                    .append(i % 6).append(',')
+                    .append("2025-").append(i % 12 < 9 ? "0" : "").append(1 + i % 12).append("-15 08:30:00\n");
+        }
+        csv = sb.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long parseAndRate() throws IOException {
+        long total = 0;
+        try (MeterReadingCsvReader reader = new MeterReadingCsvReader(new StringReader(csv))) {
+            while (reader.next()) {
+                if (reader.isValid()) {
+                    total += engine.applyRebate(engine.calculateChargesSen(reader.getUnits()), reader.getRebate());
+                }
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.BillExportWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Time to stream one million bills through BillExportWriter into a discarding stream,
+ * i.e. the export cost excluding the database cursor and the storage provider.
+ * Run with -prof gc to confirm the allocation rate does not grow with the row count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExportBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final String[] MONTHS = {"January", "February", "March", "April", "May",
+            "June", "July", "August", "September", "October", "November", "December"};
+
+    private static final long TIMESTAMP = 1749976200000L;
+
+    @Param({"CSV", "JSON_LINES"})
+    public BillExportWriter.Format format;
+
+    @Benchmark
+    public int exportMillionRows() throws IOException {
+        try (BillExportWriter writer = BillExportWriter.create(format, OutputStream.nullOutputStream())) {
+            for (int i = 0; i < ROWS; i++) {
+                int units = 1 + i % 1000;
+                writer.writeRow(i, MONTHS[i % 12], units, i % 6, units * 30L, units * 29L,
+                        TIMESTAMP);
+            }
+            return writer.getRowCount();
+        }
+    }
+}
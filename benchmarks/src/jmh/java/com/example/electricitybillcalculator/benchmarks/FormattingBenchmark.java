@@ -0,0 +1,65 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.MoneyFormatter;
+import java.text.DecimalFormat;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Currency formatting: "RM " + DecimalFormat("#,##0.00"), as the screens used to format
+ * amounts, against MoneyFormatter on whole sen. Run with -PjmhProfilers=gc to see
+ * gc.alloc.rate.norm, which is zero bytes per call for the MoneyFormatter cases.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormattingBenchmark {
+
+    // RM 43.60 and RM 1,234.56
+    @Param({"4360", "123456"})
+    public long sen;
+
+    private final DecimalFormat sharedFormat = new DecimalFormat("#,##0.00");
+    private final MoneyFormatter moneyFormatter = new MoneyFormatter();
+    private final StringBuilder builder = new StringBuilder();
+    private double amount;
+
+    @Setup
+    public void setUp() {
+        amount = sen / 100.0;
+    }
+
+    /** A new DecimalFormat per call, as in displayResults. */
+    @Benchmark
+    public String newFormatPerCall() {
+        DecimalFormat df = new DecimalFormat("#,##0.00");
+        return "RM " + df.format(amount);
+    }
+
+    /** A DecimalFormat kept in a field, as in BillListAdapter. */
+    @Benchmark
+    public String sharedFormat() {
+        return "RM " + sharedFormat.format(amount);
+    }
+
+    /** Reused char buffer handed to TextView.setText, as in MainActivity and BillDetailActivity. */
+    @Benchmark
+    public char[] moneyFormatterBuffer() {
+        moneyFormatter.format(sen);
+        return moneyFormatter.getChars();
+    }
+
+    /** Appending to a reused StringBuilder, as BillListItem does before taking a String. */
+    @Benchmark
+    public StringBuilder moneyFormatterAppend() {
+        builder.setLength(0);
+        return MoneyFormatter.append(builder, sen);
+    }
+}
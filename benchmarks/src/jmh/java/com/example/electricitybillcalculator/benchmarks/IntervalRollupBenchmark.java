@@ -0,0 +1,75 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.BillTimestamps;
+import com.example.electricitybillcalculator.core.IntervalStore;
+import com.example.electricitybillcalculator.core.MonthlyRollup;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Rolling years of quarter-hour readings up into monthly kWh straight from the store's
+ * mapped windows, and the cost of the scan alone. Divide the score by 35,040 readings a
+ * year for the cost per reading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IntervalRollupBenchmark {
+
+    private static final long QUARTER_HOUR = 15 * 60_000L;
+
+    @Param({"1", "10"})
+    public int years;
+
+    private File file;
+    private IntervalStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("intervals", ".bin");
+        file.delete();
+        store = IntervalStore.open(file);
+        Random random = new Random(25);
+        long start = BillTimestamps.toEpochMillis(2015, 1, 1, 0, 0, 0);
+        long end = BillTimestamps.toEpochMillis(2015 + years, 1, 1, 0, 0, 0);
+        for (long t = start; t < end; t += QUARTER_HOUR) {
+            store.append(t, random.nextInt(500));
+        }
+        store.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public long scan() throws IOException {
+        long wattHours = 0;
+        IntervalStore.Cursor cursor = store.cursor(Long.MIN_VALUE, Long.MAX_VALUE);
+        while (cursor.next()) {
+            wattHours += cursor.getWattHours();
+        }
+        return wattHours;
+    }
+
+    @Benchmark
+    public long rollUp() throws IOException {
+        long[] total = new long[1];
+        MonthlyRollup.rollUp(store.cursor(Long.MIN_VALUE, Long.MAX_VALUE),
+                (monthStart, wattHours, intervals) -> total[0] += wattHours);
+        return total[0];
+    }
+}
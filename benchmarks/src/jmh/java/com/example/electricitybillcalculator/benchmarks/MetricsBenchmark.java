@@ -0,0 +1,49 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.LatencyHistogram;
+import com.example.electricitybillcalculator.core.Metrics;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of instrumenting an operation with Metrics.start and Metrics.stop, with metrics
+ * disabled (as in release builds) and enabled, against the bare operation. The operation
+ * is a short busy loop standing in for a cheap call such as rating one bill; with metrics
+ * disabled the instrumented time should match the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsBenchmark {
+
+    private static final LatencyHistogram HISTOGRAM = Metrics.histogram("benchmark.work");
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    @Setup
+    public void setUp() {
+        Metrics.setEnabled(enabled);
+        HISTOGRAM.reset();
+    }
+
+    @Benchmark
+    public void baseline() {
+        Blackhole.consumeCPU(50);
+    }
+
+    @Benchmark
+    public void instrumented() {
+        long start = Metrics.start();
+        Blackhole.consumeCPU(50);
+        Metrics.stop(HISTOGRAM, start);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.TariffEngine;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of a single tariff evaluation, with one units value inside each block,
+ * and of applying the rebate percentage on top of it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TariffBenchmark {
+
+    // One value per block: 1-200, 201-300, 301-600, 601-1000 kWh
+    @Param({"150", "250", "450", "850"})
+    public double units;
+
+    @Param({"0", "5"})
+    public double rebate;
+
+    private final TariffEngine engine = TariffEngine.domestic();
+
+    @Benchmark
+    public long calculateCharges() {
+        return engine.calculateChargesSen(units);
+    }
+
+    @Benchmark
+    public long calculateFinalCost() {
+        return engine.applyRebate(engine.calculateChargesSen(units), rebate);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.TariffEngine;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of answering "how many kWh does this budget buy": scanning consumption forward a
+ * kWh at a time through calculateFinalCostSen, against the inverse solver, one budget at
+ * a time and over a batch. Every figure is per budget.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TariffInverseBenchmark {
+
+    private static final int BATCH = 4096;
+
+    // Budgets that land in the first block and past the last limit
+    @Param({"3000", "60000"})
+    public long budgetSen;
+
+    @Param({"0", "5"})
+    public double rebate;
+
+    private final TariffEngine engine = TariffEngine.domestic();
+    private final long[] budgets = new long[BATCH];
+    private final long[] maxUnits = new long[BATCH];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(23);
+        for (int i = 0; i < BATCH; i++) {
+            budgets[i] = random.nextInt((int) budgetSen + 1);
+        }
+    }
+
+    @Benchmark
+    public long scanForward() {
+        long units = 0;
+        while (engine.calculateFinalCostSen(units + 1, rebate) <= budgetSen) {
+            units++;
+        }
+        return units;
+    }
+
+    @Benchmark
+    public long maxUnitsForBudget() {
+        return engine.maxUnitsForBudget(budgetSen, rebate);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long[] maxUnitsForBudgets() {
+        engine.maxUnitsForBudgets(budgets, rebate, maxUnits, BATCH);
+        return maxUnits;
+    }
+}
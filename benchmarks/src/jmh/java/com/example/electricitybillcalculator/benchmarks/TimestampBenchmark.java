@@ -0,0 +1,60 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.BillTimestamps;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Date text for a history row: parsing the SQLite CURRENT_TIMESTAMP string and printing it
+ * back as a date, against printing stored epoch milliseconds with a shared java.time
+ * formatter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimestampBenchmark {
+
+    public String timestamp = "2025-12-20 03:29:20";
+    public long epochMillis = 1766201360000L;
+
+    private final SimpleDateFormat sharedParser = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+    private final SimpleDateFormat sharedFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+
+    /** Two new SimpleDateFormat instances per row, as the ListView adapter did on every bind. */
+    @Benchmark
+    public String perBindFormatters() {
+        try {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+            Date date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
+                    .parse(timestamp);
+            return sdf.format(date);
+        } catch (ParseException e) {
+            return timestamp;
+        }
+    }
+
+    /** Formatters shared across a page, as BillListItem.fromBills did for text timestamps. */
+    @Benchmark
+    public String sharedFormatters() {
+        try {
+            return sharedFormat.format(sharedParser.parse(timestamp));
+        } catch (ParseException e) {
+            return timestamp;
+        }
+    }
+
+    /** Epoch milliseconds printed by the shared formatter, as BillListItem does. */
+    @Benchmark
+    public String epochMillisFormatter() {
+        return BillTimestamps.formatDate(epochMillis);
+    }
+}
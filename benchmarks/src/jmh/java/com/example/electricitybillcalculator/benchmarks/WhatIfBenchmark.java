@@ -0,0 +1,73 @@
+package com.example.electricitybillcalculator.benchmarks;
+
+import com.example.electricitybillcalculator.core.TariffEngine;
+import com.example.electricitybillcalculator.core.TariffSchedule;
+import com.example.electricitybillcalculator.core.WhatIfResult;
+import com.example.electricitybillcalculator.core.WhatIfSimulator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Scaling of the what-if simulation with the number of cores: a million bills re-rated
+ * under 4 tariffs and 6 rebates (24 scenarios) on a fork/join pool of each size. Compare
+ * each parallelism against 1 for the speed-up; it levels off at the machine's core count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WhatIfBenchmark {
+
+    private static final int BILLS = 1_000_000;
+    private static final double[] REBATES = {0, 1, 2, 3, 4, 5};
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private final double[] units = new double[BILLS];
+    private final List<TariffSchedule> schedules = new ArrayList<>();
+    private ForkJoinPool pool;
+    private WhatIfSimulator simulator;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(18);
+        for (int i = 0; i < BILLS; i++) {
+            units[i] = 1 + random.nextInt(1200) + random.nextInt(10) / 10.0;
+        }
+
+        // The domestic tariff with every rate scaled, as a proposed revision would be
+        int[] limits = TariffEngine.domestic().getLimits();
+        for (int s = 0; s < 4; s++) {
+            double[] rates = TariffEngine.domestic().getRatesSen();
+            for (int b = 0; b < rates.length; b++) {
+                rates[b] *= 1 + s * 0.05;
+            }
+            schedules.add(new TariffSchedule("TNB", "Domestic +" + s * 5 + "%", 0, limits, rates));
+        }
+
+        pool = new ForkJoinPool(parallelism);
+        simulator = new WhatIfSimulator(pool, WhatIfSimulator.DEFAULT_THRESHOLD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public WhatIfResult simulate() {
+        return simulator.simulate(units, BILLS, schedules, REBATES);
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes bills one row at a time as CSV or JSON Lines.
+ *
+ * <p>Rows go straight to a buffered writer and nothing is kept once a row is written,
+ * so memory use does not depend on how many bills are exported. Amounts are given in sen
+ * and written in RM with two decimals. Timestamps are written as local
+ * {@code yyyy-MM-dd HH:mm:ss}. The CSV holds every column of a bill
+ * ({@code id,month,units,rebate,total_charges,final_cost,timestamp}) for use elsewhere;
+ * it is not in the meter reading layout {@link MeterReadingCsvReader} imports.
+ */
+public abstract class BillExportWriter implements Closeable {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        JSON_LINES("application/x-ndjson", "jsonl");
+
+        private final String mimeType;
+        private final String extension;
+
+        Format(String mimeType, String extension) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    protected final Writer out;
+    private int rows;
+
+    protected BillExportWriter(Writer out) {
+        this.out = out;
+    }
+
+    /** Writer for the given format over a UTF-8 encoded stream. */
+    public static BillExportWriter create(Format format, OutputStream stream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        BillExportWriter exportWriter = format == Format.CSV
+                ? new CsvWriter(writer)
+                : new JsonLinesWriter(writer);
+        exportWriter.writeHeader();
+        return exportWriter;
+    }
+
+    public void writeRow(long id, String month, double units, double rebate,
+                         long totalChargesSen, long finalCostSen, long timestamp) throws IOException {
+        writeBill(id, month, units, rebate, totalChargesSen, finalCostSen, timestamp);
+        rows++;
+    }
+
+    protected void writeHeader() throws IOException {
+    }
+
+    protected abstract void writeBill(long id, String month, double units, double rebate,
+                                      long totalChargesSen, long finalCostSen, long timestamp)
+            throws IOException;
+
+    // Sen as RM with two decimals, e.g. 7546 as 75.46
+    protected void writeMoney(long sen) throws IOException {
+        if (sen < 0) {
+            out.write('-');
+        }
+        long abs = Math.abs(sen);
+        out.write(Long.toString(abs / 100));
+        out.write('.');
+        out.write((int) ('0' + abs % 100 / 10));
+        out.write((int) ('0' + abs % 10));
+    }
+
+    /** Number of rows written so far. */
+    public int getRowCount() {
+        return rows;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static final class CsvWriter extends BillExportWriter {
+
+        CsvWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeHeader() throws IOException {
+            out.write("id,month,units,rebate,total_charges,final_cost,timestamp\n");
+        }
+
+        @Override
+        protected void writeBill(long id, String month, double units, double rebate,
+                                 long totalChargesSen, long finalCostSen, long timestamp)
+                throws IOException {
+            out.write(Long.toString(id));
+            out.write(',');
+            writeText(month);
+            out.write(',');
+            out.write(Double.toString(units));
+            out.write(',');
+            out.write(Double.toString(rebate));
+            out.write(',');
+            writeMoney(totalChargesSen);
+            out.write(',');
+            writeMoney(finalCostSen);
+            out.write(',');
+            out.write(BillTimestamps.formatDateTime(timestamp));
+            out.write('\n');
+        }
+
+        // Quote only fields that need it, doubling embedded quotes
+        private void writeText(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    out.write('"');
+                }
+                out.write(c);
+            }
+            out.write('"');
+        }
+    }
+
+    private static final class JsonLinesWriter extends BillExportWriter {
+
+        JsonLinesWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeBill(long id, String month, double units, double rebate,
+                                 long totalChargesSen, long finalCostSen, long timestamp)
+                throws IOException {
+            out.write("{\"id\":");
+            out.write(Long.toString(id));
+            out.write(",\"month\":");
+            writeString(month);
+            out.write(",\"units\":");
+            writeNumber(units);
+            out.write(",\"rebate\":");
+            writeNumber(rebate);
+            out.write(",\"total_charges\":");
+            writeMoney(totalChargesSen);
+            out.write(",\"final_cost\":");
+            writeMoney(finalCostSen);
+            out.write(",\"timestamp\":");
+            writeString(BillTimestamps.formatDateTime(timestamp));
+            out.write("}\n");
+        }
+
+        // JSON has no NaN or Infinity
+        private void writeNumber(double value) throws IOException {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                out.write("null");
+            } else {
+                out.write(Double.toString(value));
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.write("null");
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.write("\\\"");
+                        break;
+                    case '\\':
+                        out.write("\\\\");
+                        break;
+                    case '\n':
+                        out.write("\\n");
+                        break;
+                    case '\r':
+                        out.write("\\r");
+                        break;
+                    case '\t':
+                        out.write("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            out.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.write(c);
+                        }
+                }
+            }
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.electricitybillcalculator.core;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Conversions between bill timestamps, stored as epoch milliseconds, and the text shown
+ * to users. The formatters are immutable and thread-safe, so they are built once and
+ * shared; times are shown in the device time zone as it was when this class loaded.
+ */
+public final class BillTimestamps {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final String[] MONTHS = {"January", "February", "March", "April", "May",
+            "June", "July", "August", "September", "October", "November", "December"};
+
+    private static final DateTimeFormatter DATE =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZONE);
+    private static final DateTimeFormatter DATE_TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZONE);
+
+    private BillTimestamps() {
+    }
+
+    /** {@code yyyy-MM-dd} in the device time zone. */
+    public static String formatDate(long epochMillis) {
+        return DATE.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /** {@code yyyy-MM-dd HH:mm:ss} in the device time zone. */
+    public static String formatDateTime(long epochMillis) {
+        return DATE_TIME.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /** Number (1-12) of an English month name, ignoring case, or 0 if it is not one. */
+    public static int monthNumber(String name) {
+        for (int i = 0; i < MONTHS.length; i++) {
+            if (MONTHS[i].equalsIgnoreCase(name)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /** English name of month 1-12. */
+    public static String monthName(int number) {
+        return MONTHS[number - 1];
+    }
+
+    /**
+     * Start of the month a bill is for: local midnight on the first of the named month, in
+     * the latest year that does not put it after the bill's timestamp (a December bill
+     * recorded in January is for the previous December). Returns the timestamp itself if
+     * the month is not a month name.
+     */
+    public static long billingMonthStart(long timestamp, String month) {
+        int number = monthNumber(month);
+        if (number == 0) {
+            return timestamp;
+        }
+        LocalDate recorded = Instant.ofEpochMilli(timestamp).atZone(ZONE).toLocalDate();
+        int year = number > recorded.getMonthValue() ? recorded.getYear() - 1 : recorded.getYear();
+        return LocalDate.of(year, number, 1).atStartOfDay(ZONE).toInstant().toEpochMilli();
+    }
+
+    /** Number (1-12) of the month an instant falls in, in the device time zone. */
+    public static int monthOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZONE).getMonthValue();
+    }
+
+    /** Local midnight on the first of the month an instant falls in. */
+    public static long monthStart(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZONE).toLocalDate().withDayOfMonth(1)
+                .atStartOfDay(ZONE).toInstant().toEpochMilli();
+    }
+
+    /** Local midnight on the first of the month after the one an instant falls in. */
+    public static long nextMonthStart(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZONE).toLocalDate().withDayOfMonth(1)
+                .plusMonths(1).atStartOfDay(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Epoch milliseconds of a local date and time, or {@code Long.MIN_VALUE} if the fields
+     * do not form a valid date and time.
+     */
+    public static long toEpochMillis(int year, int month, int day, int hour, int minute, int second) {
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second)
+                    .atZone(ZONE)
+                    .toInstant()
+                    .toEpochMilli();
+        } catch (DateTimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming reader for interval meter data exported as CSV, one reading at a time.
+ *
+ * <p>Each line holds {@code start,kWh}: the start of the interval as
+ * {@code yyyy-MM-dd HH:mm[:ss]} in the device time zone and the energy used in it in kWh,
+ * which is kept to the watt-hour. Blank lines are skipped, and so is a first line that
+ * starts with a letter (a header). A row that cannot be read does not stop the reader:
+ * {@link #isValid()} is false and {@link #getError()} says why.
+ */
+public final class IntervalCsvReader implements Closeable {
+
+    private final BufferedReader in;
+
+    private int lineNumber;
+    private String error;
+    private long startMillis;
+    private int wattHours;
+
+    public IntervalCsvReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 64 * 1024);
+    }
+
+    /** Moves to the next row. Returns false once the input is exhausted. */
+    public boolean next() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+            if (lineNumber == 1 && !line.isEmpty() && Character.isLetter(line.charAt(0))) {
+                line = "";
+            }
+        } while (line.trim().isEmpty());
+
+        parse(line);
+        return true;
+    }
+
+    private void parse(String line) {
+        error = null;
+        startMillis = MeterReadingCsvReader.NO_TIMESTAMP;
+        wattHours = 0;
+
+        String[] fields = MeterReadingCsvReader.split(line);
+        if (fields == null) {
+            error = "Unbalanced quotes in '" + line + "'";
+            return;
+        }
+        if (fields.length != 2) {
+            error = "Expected 2 fields but found " + fields.length;
+            return;
+        }
+
+        String start = fields[0].length() == 16 ? fields[0] + ":00" : fields[0];
+        startMillis = start.length() == 19 ? MeterReadingCsvReader.timestamp(start)
+                : MeterReadingCsvReader.NO_TIMESTAMP;
+        if (startMillis == MeterReadingCsvReader.NO_TIMESTAMP) {
+            error = "Start must be a valid yyyy-MM-dd HH:mm or yyyy-MM-dd HH:mm:ss";
+            return;
+        }
+
+        double kwh;
+        try {
+            kwh = Double.parseDouble(fields[1]);
+        } catch (NumberFormatException e) {
+            error = "Invalid number in '" + line + "'";
+            return;
+        }
+        if (!(kwh >= 0) || kwh * 1000 > Integer.MAX_VALUE) {
+            error = "kWh must be zero or more and fit one interval";
+            return;
+        }
+        wattHours = (int) Math.round(kwh * 1000);
+    }
+
+    /** Line number of the current row, counting from 1. */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /** Start of the interval in epoch milliseconds. */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /** Energy used in the interval, rounded to the watt-hour. */
+    public int getWattHours() {
+        return wattHours;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
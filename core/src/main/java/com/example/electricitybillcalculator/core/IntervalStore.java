@@ -0,0 +1,324 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+/**
+ * Append-only file of interval meter readings, such as the 35,040 quarter-hours a smart
+ * meter reports in a year.
+ *
+ * <p>The file is a 16-byte header (magic, format version, interval length in minutes)
+ * followed by fixed-width 12-byte records: the interval's start in epoch milliseconds and
+ * the energy used in it in watt-hours. Whole watt-hours keep sums exact, and fixed widths
+ * put record {@code i} at a known offset, so a time is found by binary search. Readings
+ * are appended in time order without overlapping, buffered and written through the file's
+ * channel; a torn last record left by a crash is dropped when the file is next opened.
+ *
+ * <p>Readings are read back through a {@link Cursor}, which maps the file read-only one
+ * window of {@link #WINDOW_RECORDS} records at a time. A scan holds one window of page
+ * cache however many years it covers, and none of it on the heap.
+ *
+ * <p>An open store holds an exclusive lock on its file. It is not thread-safe.
+ */
+public final class IntervalStore implements Closeable {
+
+    /** Value of {@link #getFirstStartMillis()} and the like for an empty store. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    /** Interval length of a new store unless another is given. */
+    public static final int DEFAULT_INTERVAL_MINUTES = 15;
+
+    private static final int MAGIC = 0x45424931; // "EBI1"
+    private static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 12;
+
+    // Records mapped at once by a cursor: 768 KB, over half a year of quarter-hours
+    static final int WINDOW_RECORDS = 64 * 1024;
+    // Records appended before they are written to the file
+    private static final int APPEND_BUFFER_RECORDS = 4096;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final int intervalMinutes;
+    private final long intervalMillis;
+    private final ByteBuffer appendBuffer =
+            ByteBuffer.allocateDirect(APPEND_BUFFER_RECORDS * RECORD_BYTES);
+    private final ByteBuffer probe = ByteBuffer.allocate(8);
+
+    private long written;
+    private int buffered;
+    private long firstStart = NONE;
+    private long lastStart = NONE;
+
+    private IntervalStore(RandomAccessFile file, FileLock lock, int intervalMinutes) {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.lock = lock;
+        this.intervalMinutes = intervalMinutes;
+        this.intervalMillis = intervalMinutes * 60_000L;
+    }
+
+    /** Opens a store of {@link #DEFAULT_INTERVAL_MINUTES}-minute readings. */
+    public static IntervalStore open(File path) throws IOException {
+        return open(path, DEFAULT_INTERVAL_MINUTES);
+    }
+
+    /**
+     * Opens the store in a file, creating it if it does not exist.
+     *
+     * @param intervalMinutes length of each reading; an existing store must match it
+     * @throws IOException if the file is not a store of such readings, or is already open
+     */
+    public static IntervalStore open(File path, int intervalMinutes) throws IOException {
+        if (intervalMinutes < 1 || 24 * 60 % intervalMinutes != 0) {
+            throw new IllegalArgumentException("Interval must divide a day into whole minutes");
+        }
+
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            FileChannel channel = file.getChannel();
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Interval store " + path + " is already open");
+            }
+
+            IntervalStore store = new IntervalStore(file, lock, intervalMinutes);
+            store.load();
+            return store;
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    // Write the header of a new file, or check an existing one and find its readings
+    private void load() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (size == 0) {
+            header.putInt(MAGIC).putInt(VERSION).putInt(intervalMinutes).putInt(0).flip();
+            writeFully(header, 0);
+            return;
+        }
+
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Read until the header is full or the file ends
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+            throw new IOException("Not an interval store");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported interval store version " + header.getInt(4));
+        }
+        if (header.getInt(8) != intervalMinutes) {
+            throw new IOException("Store holds " + header.getInt(8) + "-minute intervals, not "
+                    + intervalMinutes);
+        }
+
+        written = (size - HEADER_BYTES) / RECORD_BYTES;
+        if (HEADER_BYTES + written * RECORD_BYTES != size) {
+            channel.truncate(HEADER_BYTES + written * RECORD_BYTES);
+        }
+        if (written > 0) {
+            firstStart = readStart(0);
+            lastStart = readStart(written - 1);
+        }
+    }
+
+    /**
+     * Appends a reading. It becomes visible to cursors once buffered readings are written,
+     * which {@link #cursor} does first.
+     *
+     * @param startMillis start of the interval; at least one interval after the last reading
+     * @param wattHours   energy used in the interval, zero or more
+     */
+    public void append(long startMillis, int wattHours) throws IOException {
+        if (wattHours < 0) {
+            throw new IllegalArgumentException("Watt-hours must be zero or more");
+        }
+        if (lastStart != NONE && startMillis < lastStart + intervalMillis) {
+            throw new IllegalArgumentException("Interval at " + BillTimestamps.formatDateTime(startMillis)
+                    + " is not after the last one at " + BillTimestamps.formatDateTime(lastStart));
+        }
+
+        appendBuffer.putLong(startMillis).putInt(wattHours);
+        buffered++;
+        if (firstStart == NONE) {
+            firstStart = startMillis;
+        }
+        lastStart = startMillis;
+        if (buffered == APPEND_BUFFER_RECORDS) {
+            writeBuffered();
+        }
+    }
+
+    /** Writes buffered readings and forces them to the storage device. */
+    public void flush() throws IOException {
+        writeBuffered();
+        channel.force(false);
+    }
+
+    /**
+     * Cursor over the readings that start in {@code [fromMillis, toMillis)}, oldest first.
+     * Buffered readings are written first. The cursor sees the readings stored when it was
+     * created and must not be used after the store is closed.
+     */
+    public Cursor cursor(long fromMillis, long toMillis) throws IOException {
+        writeBuffered();
+        return new Cursor(indexOf(fromMillis), written, toMillis);
+    }
+
+    /** Length of each reading, in minutes. */
+    public int getIntervalMinutes() {
+        return intervalMinutes;
+    }
+
+    /** Readings stored, including any not yet written. */
+    public long getCount() {
+        return written + buffered;
+    }
+
+    /** Start of the first reading, or {@link #NONE}. */
+    public long getFirstStartMillis() {
+        return firstStart;
+    }
+
+    /** Start of the last reading, or {@link #NONE}. */
+    public long getLastStartMillis() {
+        return lastStart;
+    }
+
+    /** End of the last reading, the earliest a new one can start, or {@link #NONE}. */
+    public long getEndMillis() {
+        return lastStart == NONE ? NONE : lastStart + intervalMillis;
+    }
+
+    /** Writes buffered readings and releases the file. */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            writeBuffered();
+        } finally {
+            lock.release();
+            file.close();
+        }
+    }
+
+    private void writeBuffered() throws IOException {
+        if (buffered == 0) {
+            return;
+        }
+        appendBuffer.flip();
+        writeFully(appendBuffer, HEADER_BYTES + written * RECORD_BYTES);
+        appendBuffer.clear();
+        written += buffered;
+        buffered = 0;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    // Index of the first written reading that starts at or after a time
+    private long indexOf(long millis) throws IOException {
+        long low = 0;
+        long high = written;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (readStart(mid) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long readStart(long index) throws IOException {
+        probe.clear();
+        long position = HEADER_BYTES + index * RECORD_BYTES;
+        while (probe.hasRemaining()) {
+            if (channel.read(probe, position + probe.position()) < 0) {
+                throw new IOException("Interval store ends inside a record");
+            }
+        }
+        return probe.getLong(0);
+    }
+
+    /**
+     * Forward-only view of stored readings, one at a time. Each window of the file is
+     * mapped read-only when the cursor reaches it; the previous one is left to the garbage
+     * collector to unmap.
+     */
+    public final class Cursor {
+        private final long end;
+        private final long toMillis;
+
+        private long index;
+        private MappedByteBuffer window;
+        private long windowFirst;
+        private int windowCount;
+
+        private long startMillis;
+        private int wattHours;
+
+        private Cursor(long first, long end, long toMillis) {
+            this.index = first;
+            this.end = end;
+            this.toMillis = toMillis;
+        }
+
+        /** Moves to the next reading. Returns false once past the range or the store's end. */
+        public boolean next() throws IOException {
+            if (index >= end) {
+                return false;
+            }
+            if (window == null || index >= windowFirst + windowCount) {
+                windowFirst = index;
+                windowCount = (int) Math.min(WINDOW_RECORDS, end - index);
+                window = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + windowFirst * RECORD_BYTES, (long) windowCount * RECORD_BYTES);
+            }
+
+            int offset = (int) (index - windowFirst) * RECORD_BYTES;
+            long start = window.getLong(offset);
+            if (start >= toMillis) {
+                index = end;
+                return false;
+            }
+            startMillis = start;
+            wattHours = window.getInt(offset + 8);
+            index++;
+            return true;
+        }
+
+        /** Start of the current reading in epoch milliseconds. */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        /** Energy used in the current reading's interval. */
+        public int getWattHours() {
+            return wattHours;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency distribution of one operation, in nanoseconds, in the style of HdrHistogram.
+ *
+ * <p>Values below 32 ns get a bucket each; above that every power of two is split into 16
+ * buckets, so a percentile is reported within 1/16 (about 6%) of the true value across
+ * the whole range up to {@link #MAX_TRACKABLE_NANOS}. Larger values are counted in the
+ * last bucket, and {@link #getMaxNanos()} stays exact. Recording is a few atomic adds, no
+ * locks and no allocation, and may run on any number of threads at once; percentiles read
+ * while others record see a nearly consistent snapshot.
+ */
+public final class LatencyHistogram {
+
+    // Buckets below the first power of two that is split, and buckets per power of two
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    /** Largest value told apart from larger ones: 2^36 ns, about 69 seconds. */
+    public static final long MAX_TRACKABLE_NANOS = (1L << 36) - 1;
+
+    private static final int BUCKETS = bucketOf(MAX_TRACKABLE_NANOS) + 1;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Adds one observation; negative values count as zero. */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(Math.min(nanos, MAX_TRACKABLE_NANOS)));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /** Mean of all observations; 0 if there are none. */
+    public long getMeanNanos() {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / n;
+    }
+
+    /**
+     * Value at the given percentile (0-100): the upper end of the bucket holding it,
+     * capped at the maximum. 0 if there are no observations.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(percentile / 100 * total), 1);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /** Forgets every observation. Not atomic with respect to concurrent recording. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        // Shift that leaves the top SUB_BUCKET_BITS bits, i.e. a value in [16, 32)
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) (nanos >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    static long highestInBucket(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long top = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
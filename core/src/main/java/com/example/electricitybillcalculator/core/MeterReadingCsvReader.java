@@ -0,0 +1,231 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * Streaming reader for meter readings exported as CSV, one row at a time.
+ *
+ * <p>Each line holds {@code month,units,rebate[,timestamp]}: the month name, consumption
+ * in kWh, rebate in percent and an optional {@code yyyy-MM-dd[ HH:mm:ss]} reading time in
+ * the device time zone. Blank lines are skipped, and so is a first line that starts with
+ * {@code month} (a header). Only the current line is held in memory. A row that cannot be
+ * read does not stop the reader: {@link #isValid()} is false and {@link #getError()} says why.
+ */
+public final class MeterReadingCsvReader implements Closeable {
+
+    /** Value of {@link #getTimestampMillis()} for a row without a reading time. */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final BufferedReader in;
+
+    private int lineNumber;
+    private String error;
+    private String month;
+    private double units;
+    private double rebate;
+    private long timestampMillis;
+
+    public MeterReadingCsvReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 64 * 1024);
+    }
+
+    /** Moves to the next row. Returns false once the input is exhausted. */
+    public boolean next() throws IOException {
+        String line;
+        do {
+            line = in.readLine();
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+            if (lineNumber == 1 && line.regionMatches(true, 0, "month", 0, 5)) {
+                line = "";
+            }
+        } while (line.trim().isEmpty());
+
+        parse(line);
+        return true;
+    }
+
+    private void parse(String line) {
+        error = null;
+        month = null;
+        units = 0;
+        rebate = 0;
+        timestampMillis = NO_TIMESTAMP;
+
+        String[] fields = split(line);
+        if (fields == null) {
+            error = "Unbalanced quotes in '" + line + "'";
+            return;
+        }
+        if (fields.length < 3 || fields.length > 4) {
+            error = "Expected 3 or 4 fields but found " + fields.length;
+            return;
+        }
+
+        int monthNumber = BillTimestamps.monthNumber(fields[0]);
+        if (monthNumber == 0) {
+            error = "Unknown month '" + fields[0] + "'";
+            return;
+        }
+        month = BillTimestamps.monthName(monthNumber);
+
+        try {
+            units = Double.parseDouble(fields[1]);
+            rebate = Double.parseDouble(fields[2]);
+        } catch (NumberFormatException e) {
+            error = "Invalid number in '" + line + "'";
+            return;
+        }
+        if (!(units >= 0) || Double.isInfinite(units)) {
+            error = "Units must be zero or more";
+            return;
+        }
+        if (!(rebate >= 0 && rebate <= 100)) {
+            error = "Rebate must be between 0 and 100";
+            return;
+        }
+
+        if (fields.length == 4 && !fields[3].isEmpty()) {
+            timestampMillis = timestamp(fields[3]);
+            if (timestampMillis == NO_TIMESTAMP) {
+                error = "Timestamp must be a valid yyyy-MM-dd or yyyy-MM-dd HH:mm:ss";
+            }
+        }
+    }
+
+    // Split on commas and trim. A field wrapped in double quotes may hold commas, and two
+    // quotes inside it stand for one. Returns null if a quote is left open or text follows
+    // a closing quote.
+    static String[] split(String line) {
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder quoted = new StringBuilder();
+        int length = line.length();
+        int i = 0;
+        while (true) {
+            while (i < length && line.charAt(i) == ' ') {
+                i++;
+            }
+            int end;
+            if (i < length && line.charAt(i) == '"') {
+                quoted.setLength(0);
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        return null;
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        quoted.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        quoted.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                end = line.indexOf(',', i);
+                if (end < 0) {
+                    end = length;
+                }
+                if (!line.substring(i, end).trim().isEmpty()) {
+                    return null;
+                }
+                fields.add(quoted.toString().trim());
+            } else {
+                end = line.indexOf(',', i);
+                if (end < 0) {
+                    end = length;
+                }
+                fields.add(line.substring(i, end).trim());
+            }
+            if (end == length) {
+                return fields.toArray(new String[0]);
+            }
+            i = end + 1;
+        }
+    }
+
+    // Local date and time to epoch milliseconds, or NO_TIMESTAMP if malformed
+    static long timestamp(String field) {
+        if (field.length() == 10) {
+            field = field + " 00:00:00";
+        }
+        if (field.length() != 19) {
+            return NO_TIMESTAMP;
+        }
+        for (int i = 0; i < 19; i++) {
+            char c = field.charAt(i);
+            boolean ok;
+            switch (i) {
+                case 4:
+                case 7:
+                    ok = c == '-';
+                    break;
+                case 10:
+                    ok = c == ' ' || c == 'T';
+                    break;
+                case 13:
+                case 16:
+                    ok = c == ':';
+                    break;
+                default:
+                    ok = c >= '0' && c <= '9';
+            }
+            if (!ok) {
+                return NO_TIMESTAMP;
+            }
+        }
+        return BillTimestamps.toEpochMillis(
+                number(field, 0, 4), number(field, 5, 7), number(field, 8, 10),
+                number(field, 11, 13), number(field, 14, 16), number(field, 17, 19));
+    }
+
+    private static int number(String digits, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (digits.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /** Line number of the current row, counting from 1. */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public double getUnits() {
+        return units;
+    }
+
+    public double getRebate() {
+        return rebate;
+    }
+
+    /** Reading time in epoch milliseconds, or {@link #NO_TIMESTAMP} when the row has none. */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
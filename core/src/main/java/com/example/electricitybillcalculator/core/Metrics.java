@@ -0,0 +1,160 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency histograms and counters for hot paths.
+ *
+ * <p>Each instrumented site holds its histogram in a static field, registered once by
+ * name, and brackets the work with {@link #start()} and {@link #stop(LatencyHistogram, long)}:
+ *
+ * <pre>{@code
+ * long start = Metrics.start();
+ * ... work ...
+ * Metrics.stop(ADD_BILL, start);
+ * }</pre>
+ *
+ * While metrics are disabled (the default) {@code start} returns 0 without reading the
+ * clock and {@code stop} returns at once, so an instrumented call pays one volatile read
+ * and a branch at each end and allocates nothing. Thread-safe.
+ */
+public final class Metrics {
+
+    /** Count of events, for things that happen rather than take time. */
+    public static final class Counter {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Counts one event while metrics are enabled. */
+        public void increment() {
+            if (enabled) {
+                count.increment();
+            }
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+    }
+
+    private static volatile boolean enabled;
+
+    // Registration order is kept so reports list operations in a stable order
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new LinkedHashMap<>();
+    private static final Map<String, Counter> COUNTERS = new LinkedHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /** The histogram registered under the name, created on first use. */
+    public static synchronized LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = HISTOGRAMS.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram(name);
+            HISTOGRAMS.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    /** The counter registered under the name, created on first use. */
+    public static synchronized Counter counter(String name) {
+        Counter counter = COUNTERS.get(name);
+        if (counter == null) {
+            counter = new Counter(name);
+            COUNTERS.put(name, counter);
+        }
+        return counter;
+    }
+
+    /** Start of a timed operation; 0 when metrics are disabled. */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /** Records the time since {@code start} unless it was taken while disabled. */
+    public static void stop(LatencyHistogram histogram, long start) {
+        if (start != 0) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /** Every histogram, in registration order. */
+    public static synchronized List<LatencyHistogram> getHistograms() {
+        return new ArrayList<>(HISTOGRAMS.values());
+    }
+
+    /** Every counter, in registration order. */
+    public static synchronized List<Counter> getCounters() {
+        return new ArrayList<>(COUNTERS.values());
+    }
+
+    /** Clears every histogram; counters keep counting. */
+    public static void resetHistograms() {
+        for (LatencyHistogram histogram : getHistograms()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Writes a table of every operation that has been recorded, with count, p50, p99 and
+     * max in milliseconds, followed by the counters.
+     */
+    public static void writeReport(Appendable out) throws IOException {
+        out.append(String.format(Locale.US, "%-28s %8s %10s %10s %10s%n",
+                "operation", "count", "p50 ms", "p99 ms", "max ms"));
+        for (LatencyHistogram histogram : getHistograms()) {
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            out.append(String.format(Locale.US, "%-28s %8d %10.3f %10.3f %10.3f%n",
+                    histogram.getName(), histogram.getCount(),
+                    millis(histogram.getPercentileNanos(50)),
+                    millis(histogram.getPercentileNanos(99)),
+                    millis(histogram.getMaxNanos())));
+        }
+        List<Counter> counters = getCounters();
+        if (!counters.isEmpty()) {
+            out.append(String.format(Locale.US, "%n%-28s %8s%n", "counter", "count"));
+            for (Counter counter : counters) {
+                out.append(String.format(Locale.US, "%-28s %8d%n", counter.getName(), counter.getCount()));
+            }
+        }
+    }
+
+    /** {@link #writeReport(Appendable)} as a String. */
+    public static String report() {
+        StringBuilder out = new StringBuilder();
+        try {
+            writeReport(out);
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw
+        }
+        return out.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
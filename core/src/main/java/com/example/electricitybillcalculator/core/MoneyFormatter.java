@@ -0,0 +1,71 @@
+package com.example.electricitybillcalculator.core;
+
+/**
+ * Formats amounts held as whole sen into {@code RM 1,234.56}, the same text as
+ * {@code "RM " + new DecimalFormat("#,##0.00").format(rm)} gives, without allocating.
+ *
+ * <p>An instance owns a small char buffer that is overwritten by every {@link #format(long)}
+ * call, so the text can be handed to {@code TextView.setText(char[], int, int)}. A
+ * TextView keeps a reference to the array it was given, so use one instance per view.
+ * Instances are not thread-safe; the static methods are.
+ */
+public final class MoneyFormatter {
+
+    // "RM -92,233,720,368,547,758.08" is the longest possible text
+    private static final int MAX_LENGTH = 32;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        long power = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+    }
+
+    private final StringBuilder text = new StringBuilder(MAX_LENGTH);
+    private final char[] chars = new char[MAX_LENGTH];
+
+    /** Writes the text for the given amount to the start of {@link #getChars()}; returns its length. */
+    public int format(long sen) {
+        text.setLength(0);
+        append(text, sen);
+        int length = text.length();
+        text.getChars(0, length, chars, 0);
+        return length;
+    }
+
+    /** Buffer holding the text of the last {@link #format(long)} call. */
+    public char[] getChars() {
+        return chars;
+    }
+
+    /** Appends the text for the given amount to a builder the caller reuses. */
+    public static StringBuilder append(StringBuilder out, long sen) {
+        // Kept negative while splitting into digits so Long.MIN_VALUE needs no special case
+        long negative = sen < 0 ? sen : -sen;
+        long wholeRm = negative / 100;
+        int cents = (int) -(negative % 100);
+
+        out.append("RM ");
+        if (sen < 0) {
+            out.append('-');
+        }
+
+        int digits = 1;
+        for (long rest = wholeRm / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            out.append((char) ('0' - wholeRm / POWERS_OF_TEN[i] % 10));
+            if (i > 0 && i % 3 == 0) {
+                out.append(',');
+            }
+        }
+
+        return out.append('.')
+                .append((char) ('0' + cents / 10))
+                .append((char) ('0' + cents % 10));
+    }
+}
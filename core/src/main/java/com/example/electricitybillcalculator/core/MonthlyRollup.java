@@ -0,0 +1,70 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.IOException;
+
+/**
+ * Rolls interval readings up into calendar months, in the device time zone, as they stream
+ * past. Only the month in progress is held, so memory use does not grow with the number
+ * of readings. A reading counts towards the month it starts in; months without readings
+ * are not reported.
+ */
+public final class MonthlyRollup {
+
+    /** Told about each month once its last reading has been added. */
+    public interface MonthListener {
+        /**
+         * @param monthStartMillis local midnight on the first of the month
+         * @param wattHours        energy used over the month's readings
+         * @param intervals        readings in the month
+         */
+        void onMonth(long monthStartMillis, long wattHours, int intervals);
+    }
+
+    private final MonthListener listener;
+
+    private long monthStart = IntervalStore.NONE;
+    private long nextMonthStart;
+    private long wattHours;
+    private int intervals;
+
+    public MonthlyRollup(MonthListener listener) {
+        this.listener = listener;
+    }
+
+    /** Rolls up every reading a cursor has left, then reports the last month. */
+    public static void rollUp(IntervalStore.Cursor cursor, MonthListener listener) throws IOException {
+        MonthlyRollup rollup = new MonthlyRollup(listener);
+        while (cursor.next()) {
+            rollup.add(cursor.getStartMillis(), cursor.getWattHours());
+        }
+        rollup.finish();
+    }
+
+    /**
+     * Adds a reading, reporting the month in progress first if the reading starts after it.
+     *
+     * @throws IllegalArgumentException if the reading starts before the month in progress
+     */
+    public void add(long startMillis, int wattHours) {
+        if (startMillis >= nextMonthStart || monthStart == IntervalStore.NONE) {
+            finish();
+            monthStart = BillTimestamps.monthStart(startMillis);
+            nextMonthStart = BillTimestamps.nextMonthStart(startMillis);
+        } else if (startMillis < monthStart) {
+            throw new IllegalArgumentException("Reading at " + BillTimestamps.formatDateTime(startMillis)
+                    + " is before the month in progress");
+        }
+        this.wattHours += wattHours;
+        intervals++;
+    }
+
+    /** Reports the month in progress, if any. Readings added later start a new month. */
+    public void finish() {
+        if (intervals > 0) {
+            listener.onMonth(monthStart, wattHours, intervals);
+        }
+        monthStart = IntervalStore.NONE;
+        wattHours = 0;
+        intervals = 0;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every utility's tariff schedules, compiled and indexed by effective date.
+ *
+ * <p>Each schedule is compiled into a {@link TariffEngine} once, when the catalog is built.
+ * Finding the engine in effect at an instant is a binary search over one utility's
+ * effective dates. A catalog is immutable and can be shared between threads.
+ */
+public final class TariffCatalog {
+
+    /** Utility whose tariffs the app rates bills with. */
+    public static final String DEFAULT_UTILITY = "TNB";
+
+    private static final TariffCatalog BUILT_IN = new TariffCatalog(Collections.singletonList(
+            new TariffSchedule(DEFAULT_UTILITY, "Domestic", 0,
+                    TariffEngine.domestic().getLimits(), TariffEngine.domestic().getRatesSen())));
+
+    // One utility's schedules: effective dates ascending, with the engine for each
+    private static final class Timeline {
+        final long[] effectiveFrom;
+        final TariffEngine[] engines;
+
+        Timeline(long[] effectiveFrom, TariffEngine[] engines) {
+            this.effectiveFrom = effectiveFrom;
+            this.engines = engines;
+        }
+    }
+
+    private final Map<String, Timeline> timelines = new HashMap<>();
+    private final int scheduleCount;
+
+    /**
+     * Compiles the given schedules. When two schedules of a utility take effect at the same
+     * instant, the one later in the list wins.
+     *
+     * @throws IllegalArgumentException if a schedule's blocks are not valid
+     */
+    public TariffCatalog(List<TariffSchedule> schedules) {
+        Map<String, List<TariffSchedule>> byUtility = new HashMap<>();
+        for (TariffSchedule schedule : schedules) {
+            List<TariffSchedule> list = byUtility.get(schedule.getUtility());
+            if (list == null) {
+                list = new ArrayList<>();
+                byUtility.put(schedule.getUtility(), list);
+            }
+            list.add(schedule);
+        }
+
+        int count = 0;
+        for (Map.Entry<String, List<TariffSchedule>> entry : byUtility.entrySet()) {
+            List<TariffSchedule> list = entry.getValue();
+            // Stable sort keeps list order among equal dates, so the later one is kept below
+            Collections.sort(list, Comparator.comparingLong(TariffSchedule::getEffectiveFrom));
+
+            long[] dates = new long[list.size()];
+            TariffEngine[] engines = new TariffEngine[list.size()];
+            int n = 0;
+            for (TariffSchedule schedule : list) {
+                if (n > 0 && dates[n - 1] == schedule.getEffectiveFrom()) {
+                    n--;
+                }
+                dates[n] = schedule.getEffectiveFrom();
+                engines[n] = schedule.compile();
+                n++;
+            }
+            timelines.put(entry.getKey(), new Timeline(Arrays.copyOf(dates, n), Arrays.copyOf(engines, n)));
+            count += n;
+        }
+        this.scheduleCount = count;
+    }
+
+    /** The domestic tariff of {@link #DEFAULT_UTILITY}, in effect since the epoch. */
+    public static TariffCatalog builtIn() {
+        return BUILT_IN;
+    }
+
+    /**
+     * Engine of the given utility's schedule in effect at the given instant. Instants
+     * before the utility's first schedule use that first schedule. Returns null if the
+     * utility has no schedules.
+     */
+    public TariffEngine engineFor(String utility, long at) {
+        Timeline timeline = timelines.get(utility);
+        if (timeline == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(timeline.effectiveFrom, at);
+        if (index < 0) {
+            // Insertion point minus one is the last schedule that started before 'at'
+            index = Math.max(-index - 2, 0);
+        }
+        return timeline.engines[index];
+    }
+
+    /**
+     * Engine for a bill: the schedule in effect at the start of the month it is for, see
+     * {@link BillTimestamps#billingMonthStart(long, String)}.
+     */
+    public TariffEngine engineForBill(String utility, String month, long timestamp) {
+        return engineFor(utility, BillTimestamps.billingMonthStart(timestamp, month));
+    }
+
+    /** Number of schedules in effect at some point, across all utilities. */
+    public int getScheduleCount() {
+        return scheduleCount;
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.Arrays;
+
+/**
+ * Block (tiered) electricity tariff.
+ *
+ * The cumulative charge at every block boundary is computed once when the engine is
+ * built, together with a table that maps a kWh bucket straight to its block. Rating a
+ * bill is then a single table lookup plus one multiply-add instead of a cascade of
+ * per-block branches. Limits with a small common divisor relative to the last one would
+ * need a huge table, so such schedules find the block by binary search over the limits.
+ *
+ * <p>Money is whole sen in a {@code long}. Rates are held exactly in thousandths of a sen,
+ * so charges for whole kWh are computed without rounding error and rounded half up to
+ * the sen once, at the end.
+ *
+ * <p>Bills rated in bulk go through a batch kernel instead: it walks the blocks once per
+ * chunk of bills and clamps each bill's kWh to every block with min and max rather than
+ * branching on which block a bill is in. The loops are straight-line arithmetic over
+ * primitive arrays, which the JIT can vectorize, and give exactly the scalar results.
+ *
+ * <p>The same table answers the inverse question, how many kWh a budget buys, with a
+ * binary search over the block boundaries instead of a scan through consumption.
+ */
+public final class TariffEngine {
+
+    // Domestic block table (sen per kWh)
+    private static final int[] DOMESTIC_LIMITS = {200, 300, 600, 1000};
+    private static final double[] DOMESTIC_RATES = {21.8, 33.4, 51.6, 54.6};
+
+    private static final TariffEngine DOMESTIC = new TariffEngine(DOMESTIC_LIMITS, DOMESTIC_RATES);
+
+    /** Answer of {@link #maxUnitsForBudget} when the budget puts no limit on consumption. */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    // Largest kWh bucket table built; a schedule needing more binary-searches its limits
+    private static final int MAX_BUCKETS = 4096;
+
+    // Bills per pass of the batch kernel, so their partial charges stay in L1 cache
+    private static final int RATE_CHUNK = 1024;
+
+    // Largest charge whose cumulative 1/1000 sen is still exact in a double, so that the
+    // inverse agrees with calculateChargesSen
+    private static final long MAX_EXACT_CHARGES_SEN = (1L << 53) / 1000;
+
+    private final int[] limits;        // upper kWh limit of each block
+    private final double[] ratesSen;   // rate of each block in sen per kWh
+    private final double[] lowerKwh;   // first kWh of each block
+    private final long[] rateMilliSen; // rate of each block in 1/1000 sen per kWh
+    private final long[] baseMilliSen; // cumulative charge at the start of each block, 1/1000 sen
+    private final int bucketSize;      // greatest common divisor of all limits
+    private final byte[] bucketBlock;  // kWh bucket -> block index, or null to search limits
+
+    /**
+     * @param limits   upper kWh limit of each block, strictly increasing. Consumption
+     *                 above the last limit is charged at the last block's rate.
+     * @param ratesSen rate of each block in sen per kWh
+     */
+    public TariffEngine(int[] limits, double[] ratesSen) {
+        if (limits == null || ratesSen == null || limits.length == 0
+                || limits.length != ratesSen.length || limits.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Each block needs exactly one limit and one rate");
+        }
+
+        int blocks = limits.length;
+        this.limits = limits.clone();
+        this.ratesSen = ratesSen.clone();
+        this.lowerKwh = new double[blocks];
+        this.rateMilliSen = new long[blocks];
+        this.baseMilliSen = new long[blocks];
+
+        int gcd = 0;
+        int previous = 0;
+        long charge = 0;
+        for (int i = 0; i < blocks; i++) {
+            if (limits[i] <= previous) {
+                throw new IllegalArgumentException("Block limits must be positive and increasing");
+            }
+            if (!(ratesSen[i] >= 0) || Double.isInfinite(ratesSen[i])) {
+                throw new IllegalArgumentException("Block rates must be zero or more");
+            }
+            lowerKwh[i] = previous;
+            rateMilliSen[i] = Math.round(ratesSen[i] * 1000);
+            baseMilliSen[i] = charge;
+            charge += (limits[i] - previous) * rateMilliSen[i];
+            gcd = gcd(gcd, limits[i]);
+            previous = limits[i];
+        }
+
+        // Every block boundary is a multiple of the bucket size, so each bucket
+        // falls entirely inside one block.
+        this.bucketSize = gcd;
+        if (previous / gcd >= MAX_BUCKETS) {
+            this.bucketBlock = null;
+            return;
+        }
+        this.bucketBlock = new byte[previous / gcd + 1];
+        int block = 0;
+        for (int bucket = 0; bucket < bucketBlock.length; bucket++) {
+            if (block < blocks - 1 && bucket * gcd >= limits[block]) {
+                block++;
+            }
+            bucketBlock[bucket] = (byte) block;
+        }
+    }
+
+    /** Shared engine for the domestic tariff used by the calculator screens. */
+    public static TariffEngine domestic() {
+        return DOMESTIC;
+    }
+
+    /** Total charges in sen for the given consumption in kWh. */
+    public long calculateChargesSen(double units) {
+        if (!(units > 0)) {
+            return 0;
+        }
+        int block = blockOf(units);
+        double milliSen = baseMilliSen[block] + (units - lowerKwh[block]) * rateMilliSen[block];
+        return Math.round(milliSen / 1000);
+    }
+
+    /**
+     * Charges in sen of {@code count} bills, {@code units[offset]} onwards, written to the
+     * start of {@code chargesSen}; each exactly as {@link #calculateChargesSen(double)}.
+     *
+     * @throws IllegalArgumentException if the bills run past either array
+     */
+    public void calculateChargesSen(double[] units, int offset, long[] chargesSen, int count) {
+        if (offset < 0 || count < 0 || offset > units.length - count || count > chargesSen.length) {
+            throw new IllegalArgumentException("Bills must be within both arrays");
+        }
+        // The kernel reads a copy of each chunk: the JIT does not vectorize a loop that
+        // indexes its two arrays at different offsets
+        double[] kwh = new double[Math.min(count, RATE_CHUNK)];
+        double[] milliSen = new double[kwh.length];
+        for (int start = 0; start < count; start += RATE_CHUNK) {
+            int n = Math.min(RATE_CHUNK, count - start);
+            System.arraycopy(units, offset + start, kwh, 0, n);
+            addBlockCharges(kwh, milliSen, n);
+            for (int i = 0; i < n; i++) {
+                chargesSen[start + i] = Math.round(milliSen[i] / 1000);
+            }
+        }
+    }
+
+    /**
+     * Rates the first {@code count} bills at once: the charges of each, and its final cost
+     * after its own rebate in percent, exactly as {@link #calculateChargesSen(double)} and
+     * {@link #applyRebate(long, double)}.
+     *
+     * @throws IllegalArgumentException if count exceeds any of the arrays
+     */
+    public void rate(double[] units, double[] rebatesPercent, long[] totalChargesSen,
+                     long[] finalCostSen, int count) {
+        if (count > rebatesPercent.length || count > finalCostSen.length) {
+            throw new IllegalArgumentException("Bills must be within every array");
+        }
+        calculateChargesSen(units, 0, totalChargesSen, count);
+        for (int i = 0; i < count; i++) {
+            long chargesSen = totalChargesSen[i];
+            finalCostSen[i] = chargesSen - Math.round(chargesSen * rebatesPercent[i] / 100);
+        }
+    }
+
+    // Cumulative charge of n bills in 1/1000 sen, one block at a time: every bill gets
+    // the part of its kWh that falls in the block times the block's rate. Blocks below a
+    // bill's own add their whole width and blocks above it add zero, so the sum is the
+    // same base-plus-partial as the scalar path, in the same order of additions.
+    private void addBlockCharges(double[] units, double[] milliSen, int n) {
+        Arrays.fill(milliSen, 0, n, 0);
+        int last = limits.length - 1;
+        for (int block = 0; block <= last; block++) {
+            double lower = lowerKwh[block];
+            double width = block == last ? Double.POSITIVE_INFINITY : limits[block] - lower;
+            double rate = rateMilliSen[block];
+            for (int i = 0; i < n; i++) {
+                milliSen[i] += Math.min(Math.max(units[i] - lower, 0), width) * rate;
+            }
+        }
+    }
+
+    /** Charges in sen after deducting a rebate given in percent, rounded to the sen. */
+    public long applyRebate(long chargesSen, double rebatePercent) {
+        return chargesSen - Math.round(chargesSen * rebatePercent / 100);
+    }
+
+    /** Final cost in sen for the given consumption and rebate percentage. */
+    public long calculateFinalCostSen(double units, double rebatePercent) {
+        return applyRebate(calculateChargesSen(units), rebatePercent);
+    }
+
+    /**
+     * Largest whole number of kWh whose final cost after the rebate is within the budget,
+     * the inverse of {@link #calculateFinalCostSen(double, double)} for whole kWh. Takes
+     * O(log blocks). {@link #UNLIMITED} if the budget puts no limit on consumption: the
+     * rebate is 100%, the last block is free and reached, or the budget covers charges too
+     * large to rate exactly.
+     *
+     * @param budgetSen     most the customer will pay, in sen after the rebate
+     * @param rebatePercent rebate in percent
+     * @throws IllegalArgumentException if the budget is negative or the rebate is not 0-100
+     */
+    public long maxUnitsForBudget(long budgetSen, double rebatePercent) {
+        checkRebate(rebatePercent);
+        checkBudget(budgetSen);
+        return maxUnits(budgetSen, rebatePercent);
+    }
+
+    /**
+     * {@link #maxUnitsForBudget(long, double)} for the first {@code count} budgets, all with
+     * the same rebate, written to {@code maxUnits}.
+     *
+     * @throws IllegalArgumentException if count exceeds either array, a budget is negative
+     *                                  or the rebate is not 0-100
+     */
+    public void maxUnitsForBudgets(long[] budgetsSen, double rebatePercent, long[] maxUnits, int count) {
+        if (count < 0 || count > budgetsSen.length || count > maxUnits.length) {
+            throw new IllegalArgumentException("Count must be within both arrays");
+        }
+        checkRebate(rebatePercent);
+        for (int i = 0; i < count; i++) {
+            checkBudget(budgetsSen[i]);
+            maxUnits[i] = maxUnits(budgetsSen[i], rebatePercent);
+        }
+    }
+
+    private long maxUnits(long budgetSen, double rebatePercent) {
+        long chargesSen = maxChargesSen(budgetSen, rebatePercent);
+        if (chargesSen == UNLIMITED) {
+            return UNLIMITED;
+        }
+
+        // Charges round half up to the sen, so this is the most 1/1000 sen that still
+        // rounds to chargesSen or less
+        long maxMilliSen = chargesSen * 1000 + 499;
+
+        // Last block that starts within the budget; a free block ahead of a charged one
+        // starts at the same charge as it, so it is passed over
+        int low = 0;
+        int high = limits.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (baseMilliSen[mid] <= maxMilliSen) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int block = low;
+        if (rateMilliSen[block] == 0) {
+            return block == limits.length - 1 ? UNLIMITED : limits[block];
+        }
+        long units = (long) lowerKwh[block] + (maxMilliSen - baseMilliSen[block]) / rateMilliSen[block];
+        return block == limits.length - 1 ? units : Math.min(units, limits[block]);
+    }
+
+    // Largest charge in sen whose final cost after the rebate is within the budget
+    private long maxChargesSen(long budgetSen, double rebatePercent) {
+        if (rebatePercent == 100) {
+            return UNLIMITED;
+        }
+        // applyRebate(c) <= budget exactly when c * (1 - rebate) <= budget + 1/2
+        double estimate = Math.floor((budgetSen + 0.5) / (1 - rebatePercent / 100));
+        if (estimate >= MAX_EXACT_CHARGES_SEN) {
+            return UNLIMITED;
+        }
+        long chargesSen = (long) estimate;
+        // Floating point can leave the estimate a sen out either way; applyRebate rises
+        // by at most one sen per sen of charges, so a step or two settles it
+        while (applyRebate(chargesSen + 1, rebatePercent) <= budgetSen) {
+            chargesSen++;
+        }
+        while (chargesSen > 0 && applyRebate(chargesSen, rebatePercent) > budgetSen) {
+            chargesSen--;
+        }
+        return chargesSen;
+    }
+
+    private static void checkBudget(long budgetSen) {
+        if (budgetSen < 0) {
+            throw new IllegalArgumentException("Budget must not be negative");
+        }
+    }
+
+    private static void checkRebate(double rebatePercent) {
+        if (!(rebatePercent >= 0 && rebatePercent <= 100)) {
+            throw new IllegalArgumentException("Rebate must be between 0 and 100");
+        }
+    }
+
+    public int getBlockCount() {
+        return limits.length;
+    }
+
+    public int[] getLimits() {
+        return limits.clone();
+    }
+
+    public double[] getRatesSen() {
+        return ratesSen.clone();
+    }
+
+    private int blockOf(double units) {
+        if (bucketBlock == null) {
+            // First block whose limit is not below the units; the last one past all limits
+            int low = 0;
+            int high = limits.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (units <= limits[mid]) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+        // units > 0 here; the bucket is clamped so that anything past the last
+        // limit stays in the last block.
+        long bucket = (long) Math.ceil(units / bucketSize) - 1;
+        return bucketBlock[(int) Math.min(bucket, bucketBlock.length - 1)];
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
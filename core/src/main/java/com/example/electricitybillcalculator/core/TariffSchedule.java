@@ -0,0 +1,57 @@
+package com.example.electricitybillcalculator.core;
+
+/**
+ * One version of a utility's block tariff: its blocks and the date it takes effect from.
+ * Schedules are plain data; {@link TariffCatalog} compiles them into {@link TariffEngine}s.
+ */
+public final class TariffSchedule {
+
+    private final String utility;
+    private final String name;
+    private final long effectiveFrom;
+    private final int[] limits;
+    private final double[] ratesSen;
+
+    /**
+     * @param utility       utility the schedule belongs to
+     * @param name          label shown to users, e.g. "Domestic 2025"
+     * @param effectiveFrom first instant the schedule applies, in epoch milliseconds
+     * @param limits        upper kWh limit of each block, strictly increasing
+     * @param ratesSen      rate of each block in sen per kWh
+     */
+    public TariffSchedule(String utility, String name, long effectiveFrom, int[] limits, double[] ratesSen) {
+        if (utility == null || utility.isEmpty()) {
+            throw new IllegalArgumentException("A schedule needs a utility");
+        }
+        this.utility = utility;
+        this.name = name;
+        this.effectiveFrom = effectiveFrom;
+        this.limits = limits.clone();
+        this.ratesSen = ratesSen.clone();
+    }
+
+    /** Build an engine for this schedule; fails if the blocks are not valid. */
+    public TariffEngine compile() {
+        return new TariffEngine(limits, ratesSen);
+    }
+
+    public String getUtility() {
+        return utility;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    public int[] getLimits() {
+        return limits.clone();
+    }
+
+    public double[] getRatesSen() {
+        return ratesSen.clone();
+    }
+}
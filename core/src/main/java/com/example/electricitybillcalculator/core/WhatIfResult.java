@@ -0,0 +1,69 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.List;
+
+/**
+ * Totals of a {@link WhatIfSimulator} run: every bill re-rated under each tariff schedule,
+ * and each of those with every rebate. Money is whole sen.
+ */
+public final class WhatIfResult {
+
+    private final List<TariffSchedule> schedules;
+    private final double[] rebates;
+    private final int billCount;
+    private final long[] totalChargesSen; // per schedule
+    private final long[] finalCostSen;    // per schedule and rebate, schedule major
+    private final long elapsedNanos;
+
+    WhatIfResult(List<TariffSchedule> schedules, double[] rebates, int billCount,
+                 long[] totalChargesSen, long[] finalCostSen, long elapsedNanos) {
+        this.schedules = schedules;
+        this.rebates = rebates;
+        this.billCount = billCount;
+        this.totalChargesSen = totalChargesSen;
+        this.finalCostSen = finalCostSen;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getScheduleCount() {
+        return schedules.size();
+    }
+
+    public TariffSchedule getSchedule(int schedule) {
+        return schedules.get(schedule);
+    }
+
+    public int getRebateCount() {
+        return rebates.length;
+    }
+
+    /** Rebate in percent. */
+    public double getRebate(int rebate) {
+        return rebates[rebate];
+    }
+
+    /** Number of bills re-rated under each scenario. */
+    public int getBillCount() {
+        return billCount;
+    }
+
+    /** Charges before rebate of every bill under the given schedule. */
+    public long getTotalChargesSen(int schedule) {
+        return totalChargesSen[schedule];
+    }
+
+    /** Cost of every bill under the given schedule and rebate, each bill's rebate rounded on its own. */
+    public long getFinalCostSen(int schedule, int rebate) {
+        return finalCostSen[schedule * rebates.length + rebate];
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        return schedules.size() * rebates.length + " scenarios over " + billCount + " bills in "
+                + getElapsedMillis() + " ms";
+    }
+}
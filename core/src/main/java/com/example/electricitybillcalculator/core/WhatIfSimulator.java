@@ -0,0 +1,143 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Re-rates a history of bills under every combination of a set of tariff schedules and
+ * rebates, answering "what would these bills have cost under tariff X with rebate Y".
+ *
+ * <p>The bills' consumption is split into ranges that are rated in parallel on a
+ * fork/join pool. Each range rates a bill once per schedule and derives every rebate
+ * from that charge, summing into one array of totals per range; ranges are added
+ * together as they join. A simulator holds no state between runs and can be shared.
+ */
+public final class WhatIfSimulator {
+
+    // Bills rated by one task before it stops splitting
+    public static final int DEFAULT_THRESHOLD = 8192;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /** Runs on the common pool, one thread per core. */
+    public WhatIfSimulator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param pool      pool the ranges run on; its parallelism decides how many cores are used
+     * @param threshold bills rated by one task before it stops splitting
+     */
+    public WhatIfSimulator(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be at least one bill");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Rates the first {@code count} entries of {@code units} under every schedule and rebate.
+     *
+     * @param units     consumption of each bill in kWh
+     * @param count     number of bills in {@code units}
+     * @param schedules tariffs to try
+     * @param rebates   rebates to try, in percent
+     * @throws IllegalArgumentException if a schedule's blocks or a rebate are not valid
+     */
+    public WhatIfResult simulate(double[] units, int count, List<TariffSchedule> schedules,
+                                 double[] rebates) {
+        if (count < 0 || count > units.length) {
+            throw new IllegalArgumentException("Count must be within the units array");
+        }
+        for (double rebate : rebates) {
+            if (!(rebate >= 0 && rebate <= 100)) {
+                throw new IllegalArgumentException("Rebate must be between 0 and 100");
+            }
+        }
+        TariffEngine[] engines = new TariffEngine[schedules.size()];
+        for (int i = 0; i < engines.length; i++) {
+            engines[i] = schedules.get(i).compile();
+        }
+
+        long start = System.nanoTime();
+        double[] rebateCopy = rebates.clone();
+        long[] totals = pool.invoke(new RangeTask(units, 0, count, engines, rebateCopy, threshold));
+
+        // totals holds the charges per schedule, then the final cost per scenario
+        long[] totalChargesSen = new long[engines.length];
+        long[] finalCostSen = new long[engines.length * rebateCopy.length];
+        System.arraycopy(totals, 0, totalChargesSen, 0, totalChargesSen.length);
+        System.arraycopy(totals, totalChargesSen.length, finalCostSen, 0, finalCostSen.length);
+        return new WhatIfResult(new ArrayList<>(schedules), rebateCopy, count,
+                totalChargesSen, finalCostSen, System.nanoTime() - start);
+    }
+
+    // Bills whose charges are held at once by a task
+    private static final int CHUNK = 4096;
+
+    // Totals of the bills in [from, to): charges per engine, then final cost per scenario
+    private static final class RangeTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] units;
+        private final int from;
+        private final int to;
+        private final TariffEngine[] engines;
+        private final double[] rebates;
+        private final int threshold;
+
+        RangeTask(double[] units, int from, int to, TariffEngine[] engines, double[] rebates,
+                  int threshold) {
+            this.units = units;
+            this.from = from;
+            this.to = to;
+            this.engines = engines;
+            this.rebates = rebates;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= threshold) {
+                return rate();
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(units, from, middle, engines, rebates, threshold);
+            left.fork();
+            long[] totals = new RangeTask(units, middle, to, engines, rebates, threshold).compute();
+            long[] leftTotals = left.join();
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += leftTotals[i];
+            }
+            return totals;
+        }
+
+        // Charges of a chunk of bills at a time through the batch kernel, then every
+        // rebate applied to the chunk
+        private long[] rate() {
+            int scenarios = rebates.length;
+            long[] totals = new long[engines.length * (1 + scenarios)];
+            long[] charges = new long[Math.min(to - from, CHUNK)];
+            for (int e = 0; e < engines.length; e++) {
+                TariffEngine engine = engines[e];
+                int scenarioBase = engines.length + e * scenarios;
+                for (int start = from; start < to; start += charges.length) {
+                    int n = Math.min(charges.length, to - start);
+                    engine.calculateChargesSen(units, start, charges, n);
+                    for (int i = 0; i < n; i++) {
+                        long billCharges = charges[i];
+                        totals[e] += billCharges;
+                        for (int r = 0; r < scenarios; r++) {
+                            totals[scenarioBase + r] += engine.applyRebate(billCharges, rebates[r]);
+                        }
+                    }
+                }
+            }
+            return totals;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind queue that turns many small writes into few group commits.
+ *
+ * <p>Writes are accepted from any thread and handed to a {@link BatchWriter} on a single
+ * writer thread, which commits each batch at once (for a database, in one transaction).
+ * A batch is written once {@code maxBatch} writes are waiting, once the oldest has waited
+ * {@code maxDelayMillis}, or on {@link #flush()}. A write with a key replaces a waiting
+ * write with the same key, so repeated updates of one record cost one row; writes without
+ * a key are never coalesced. Submitters block while {@code maxBatch} writes are already
+ * waiting, which bounds the memory held by the queue; {@link #offer} refuses instead, for
+ * threads that must not block.
+ *
+ * <p>Each write's callback runs on the writer thread once its batch has been committed,
+ * or has failed; a coalesced write is reported with the write that replaced it. A callback
+ * that throws does not stop the queue: the exception is counted, handed to the
+ * {@link CallbackErrorHandler} if one is set, and the remaining callbacks still run.
+ * {@link #close()} writes everything still waiting before the writer thread stops, and
+ * is the queue's shutdown hook.
+ */
+public final class WriteBehindQueue<K, V> implements Closeable {
+
+    /**
+     * Commits a batch of writes as one unit; throwing fails the whole batch. A write that
+     * cannot be applied on its own can be failed with {@link #failWrite} instead.
+     */
+    public interface BatchWriter<V> {
+        void write(List<V> batch) throws Exception;
+    }
+
+    /** Told when a write is durable, or that its batch failed. */
+    public interface WriteCallback {
+        /** @param error null once the write has been committed, else why its batch failed */
+        void onWritten(Exception error);
+    }
+
+    /** Told when a write callback throws. */
+    public interface CallbackErrorHandler {
+        void onCallbackError(RuntimeException error);
+    }
+
+    // A waiting write and the callbacks of every write it replaced
+    private static final class Pending<V> {
+        V value;
+        final List<WriteCallback> callbacks = new ArrayList<>(1);
+
+        Pending(V value) {
+            this.value = value;
+        }
+    }
+
+    private final BatchWriter<V> writer;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final Thread thread;
+    private volatile CallbackErrorHandler callbackErrorHandler;
+
+    // Writes of the batch being written failed by the writer, by index; writer thread only
+    private Exception[] failedWrites;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+
+    // Waiting writes in submission order; writes without a key get a key of their own
+    private final Map<Object, Pending<V>> pending = new LinkedHashMap<>();
+    private long oldestNanos;
+    private long submitted;
+    private long written;
+    private boolean flushRequested;
+    private boolean closed;
+
+    // Totals, for tuning the thresholds
+    private long batches;
+    private long rows;
+    private long coalesced;
+    private long callbackErrors;
+
+    /**
+     * Starts the writer thread.
+     *
+     * @param writer         commits each batch, on the writer thread
+     * @param maxBatch       writes waiting before a batch is written at once
+     * @param maxDelayMillis longest a write waits for others to join its batch
+     * @param threadName     name of the writer thread
+     */
+    public WriteBehindQueue(BatchWriter<V> writer, int maxBatch, long maxDelayMillis,
+                            String threadName) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Batch size must be at least one write");
+        }
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Delay must not be negative");
+        }
+        this.writer = writer;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a write.
+     *
+     * @param key      writes with an equal key coalesce; null never coalesces
+     * @param value    what to write; must not be changed until it has been written
+     * @param callback told when the write is durable or has failed; may be null
+     * @throws IllegalStateException if the queue has been closed
+     */
+    public void submit(K key, V value, WriteCallback callback) throws InterruptedException {
+        lock.lock();
+        try {
+            Pending<V> existing = key == null ? null : pending.get(key);
+            // The writer thread never waits on itself, e.g. when a callback queues a write
+            while (existing == null && pending.size() >= maxBatch && !closed
+                    && Thread.currentThread() != thread) {
+                notFull.await();
+                existing = key == null ? null : pending.get(key);
+            }
+            add(key, value, callback, existing);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues a write unless {@code maxBatch} writes are already waiting and it would not
+     * coalesce with one of them. Never blocks.
+     *
+     * @return false if the write was refused; its callback is not called
+     * @throws IllegalStateException if the queue has been closed
+     */
+    public boolean offer(K key, V value, WriteCallback callback) {
+        lock.lock();
+        try {
+            Pending<V> existing = key == null ? null : pending.get(key);
+            if (existing == null && pending.size() >= maxBatch && !closed
+                    && Thread.currentThread() != thread) {
+                return false;
+            }
+            add(key, value, callback, existing);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Adds a write, replacing the waiting one with the same key if there is one; lock held
+    private void add(K key, V value, WriteCallback callback, Pending<V> existing) {
+        if (closed) {
+            throw new IllegalStateException("Queue is closed");
+        }
+
+        if (existing != null) {
+            existing.value = value;
+            coalesced++;
+        } else {
+            existing = new Pending<>(value);
+            if (pending.isEmpty()) {
+                oldestNanos = System.nanoTime();
+            }
+            pending.put(key == null ? new Object() : key, existing);
+        }
+        if (callback != null) {
+            existing.callbacks.add(callback);
+        }
+        submitted++;
+        changed.signal();
+    }
+
+    /** Writes everything queued so far without waiting for it. */
+    public void requestFlush() {
+        lock.lock();
+        try {
+            flushRequested = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes everything queued so far and waits until it has been committed or has
+     * failed. Must not be called from a callback.
+     */
+    public void flush() throws InterruptedException {
+        lock.lock();
+        try {
+            long target = submitted;
+            flushRequested = true;
+            changed.signal();
+            while (written < target) {
+                committed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting writes, writes everything still waiting and stops the writer
+     * thread. Later calls return at once.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        while (thread.isAlive() && Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fails one write of the batch being written, while the rest of the batch is committed;
+     * its callbacks are told the reason. Only for the {@link BatchWriter}, during a write.
+     *
+     * @param index position of the write in the batch handed to the writer
+     */
+    public void failWrite(int index, Exception reason) {
+        if (Thread.currentThread() != thread || failedWrites == null) {
+            throw new IllegalStateException("Writes can only be failed by the batch writer");
+        }
+        failedWrites[index] = reason;
+    }
+
+    /** Handler told, on the writer thread, about each callback that throws; may be null. */
+    public void setCallbackErrorHandler(CallbackErrorHandler handler) {
+        callbackErrorHandler = handler;
+    }
+
+    /** Writes waiting for a batch. */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Batches written, successfully or not. */
+    public long getBatchCount() {
+        lock.lock();
+        try {
+            return batches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Rows handed to the writer, after coalescing. */
+    public long getRowCount() {
+        lock.lock();
+        try {
+            return rows;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Writes replaced by a later write with the same key before they were written. */
+    public long getCoalescedCount() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Callbacks that threw. */
+    public long getCallbackErrorCount() {
+        lock.lock();
+        try {
+            return callbackErrors;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<Pending<V>> batch;
+            long batchSubmitted;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !closed) {
+                    flushRequested = false;
+                    changed.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return; // closed and nothing left to write
+                }
+                // Give other writes the chance to join the batch
+                while (pending.size() < maxBatch && !flushRequested && !closed) {
+                    long remaining = oldestNanos + maxDelayNanos - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    try {
+                        changed.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                flushRequested = false;
+                batchSubmitted = submitted;
+                batches++;
+                rows += batch.size();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            int failedCallbacks = 0;
+            try {
+                Exception error = null;
+                List<V> values = new ArrayList<>(batch.size());
+                for (Pending<V> write : batch) {
+                    values.add(write.value);
+                }
+                Exception[] failed = new Exception[batch.size()];
+                failedWrites = failed;
+                try {
+                    writer.write(values);
+                } catch (Exception e) {
+                    error = e;
+                } finally {
+                    failedWrites = null;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    for (WriteCallback callback : batch.get(i).callbacks) {
+                        try {
+                            callback.onWritten(error != null ? error : failed[i]);
+                        } catch (RuntimeException e) {
+                            failedCallbacks++;
+                            reportCallbackError(e);
+                        }
+                    }
+                }
+            } finally {
+                // Whatever happened, flush() and blocked submitters must not wait forever
+                lock.lock();
+                try {
+                    written = batchSubmitted;
+                    callbackErrors += failedCallbacks;
+                    committed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void reportCallbackError(RuntimeException error) {
+        CallbackErrorHandler handler = callbackErrorHandler;
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.onCallbackError(error);
+        } catch (RuntimeException ignored) {
+            // A failing handler must not stop the writer thread either
+        }
+    }
+}
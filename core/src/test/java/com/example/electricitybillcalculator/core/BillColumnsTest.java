@@ -0,0 +1,69 @@
+package com.example.electricitybillcalculator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BillColumnsTest {
+
+    private static BillColumns sample() {
+        // units 100..1000, final cost 1000 sen per 100 kWh; ten bills over January-March
+        BillColumns.Builder builder = new BillColumns.Builder(12);
+        for (int i = 1; i <= 10; i++) {
+            builder.add(i, 1 + i % 3, i * 100, 0, i * 1100, i * 1000, 1735689600000L + i);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void aggregatesMatchRows() {
+        BillColumns columns = sample();
+
+        assertEquals(10, columns.size());
+        assertEquals(5500, columns.sumUnits(), 0);
+        assertEquals(60500, columns.sumTotalChargesSen());
+        assertEquals(55000, columns.sumFinalCostSen());
+        assertEquals(100, columns.minUnits(), 0);
+        assertEquals(1000, columns.maxUnits(), 0);
+        assertEquals(1000, columns.minFinalCostSen());
+        assertEquals(10000, columns.maxFinalCostSen());
+        assertEquals(7, columns.getId(6));
+        assertEquals(2, columns.getMonth(6));
+    }
+
+    @Test
+    public void sumsByMonth() {
+        long[] byMonth = sample().sumFinalCostSenByMonth();
+        // i % 3 == 0 -> January: 3, 6, 9; == 1 -> February: 1, 4, 7, 10; == 2 -> March: 2, 5, 8
+        assertEquals(18000, byMonth[1]);
+        assertEquals(22000, byMonth[2]);
+        assertEquals(15000, byMonth[3]);
+        assertEquals(0, byMonth[0]);
+    }
+
+    @Test
+    public void percentilesUseNearestRank() {
+        BillColumns columns = sample();
+
+        assertEquals(100, columns.percentileUnits(0), 0);
+        assertEquals(500, columns.percentileUnits(50), 0);
+        assertEquals(900, columns.percentileUnits(90), 0);
+        assertEquals(1000, columns.percentileUnits(95), 0);
+        assertEquals(10000, columns.percentileFinalCostSen(100));
+    }
+
+    @Test
+    public void emptySnapshot() {
+        BillColumns columns = new BillColumns.Builder(0).build();
+
+        assertEquals(0, columns.sumUnits(), 0);
+        assertTrue(Double.isNaN(columns.maxUnits()));
+        assertEquals(0, columns.maxFinalCostSen());
+        assertEquals(0, columns.percentileFinalCostSen(50));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void builderRejectsRowsPastCapacity() {
+        new BillColumns.Builder(1).add(1, 1, 1, 0, 0, 0, 0).add(2, 1, 1, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BillExportWriterTest {
+
+    private static String export(BillExportWriter.Format format) throws IOException {
+        long january = BillTimestamps.toEpochMillis(2025, 1, 31, 8, 0, 0);
+        long june = BillTimestamps.toEpochMillis(2025, 6, 1, 0, 0, 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BillExportWriter writer = BillExportWriter.create(format, out)) {
+            writer.writeRow(1, "January", 250.0, 2.0, 7700, 7546, january);
+            writer.writeRow(2, "Odd, \"month\"", 10.5, 0.0, 229, 229, june);
+            assertEquals(2, writer.getRowCount());
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writesCsvWithHeaderAndQuoting() throws IOException {
+        assertEquals("id,month,units,rebate,total_charges,final_cost,timestamp\n"
+                + "1,January,250.0,2.0,77.00,75.46,2025-01-31 08:00:00\n"
+                + "2,\"Odd, \"\"month\"\"\",10.5,0.0,2.29,2.29,2025-06-01 00:00:00\n",
+                export(BillExportWriter.Format.CSV));
+    }
+
+    @Test
+    public void writesOneJsonObjectPerLine() throws IOException {
+        assertEquals("{\"id\":1,\"month\":\"January\",\"units\":250.0,\"rebate\":2.0,"
+                + "\"total_charges\":77.00,\"final_cost\":75.46,\"timestamp\":\"2025-01-31 08:00:00\"}\n"
+                + "{\"id\":2,\"month\":\"Odd, \\\"month\\\"\",\"units\":10.5,\"rebate\":0.0,"
+                + "\"total_charges\":2.29,\"final_cost\":2.29,\"timestamp\":\"2025-06-01 00:00:00\"}\n",
+                export(BillExportWriter.Format.JSON_LINES));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.electricitybillcalculator.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BillTimestampsTest {
+
+    @Test
+    public void formatsLocalDateAndTime() {
+        long millis = BillTimestamps.toEpochMillis(2025, 12, 20, 3, 29, 20);
+        assertEquals("2025-12-20", BillTimestamps.formatDate(millis));
+        assertEquals("2025-12-20 03:29:20", BillTimestamps.formatDateTime(millis));
+    }
+
+    @Test
+    public void rejectsImpossibleDates() {
+        assertEquals(Long.MIN_VALUE, BillTimestamps.toEpochMillis(2025, 2, 30, 0, 0, 0));
+        assertEquals(Long.MIN_VALUE, BillTimestamps.toEpochMillis(2025, 1, 1, 24, 0, 0));
+    }
+
+    @Test
+    public void billingMonthIsTheLatestOneNotAfterTheTimestamp() {
+        long march = BillTimestamps.toEpochMillis(2025, 3, 15, 10, 0, 0);
+        assertEquals(BillTimestamps.toEpochMillis(2025, 3, 1, 0, 0, 0),
+                BillTimestamps.billingMonthStart(march, "March"));
+        assertEquals(BillTimestamps.toEpochMillis(2025, 1, 1, 0, 0, 0),
+                BillTimestamps.billingMonthStart(march, "january"));
+        assertEquals(BillTimestamps.toEpochMillis(2024, 12, 1, 0, 0, 0),
+                BillTimestamps.billingMonthStart(march, "December"));
+        assertEquals(march, BillTimestamps.billingMonthStart(march, null));
+    }
+
+    @Test
+    public void monthBoundariesAreLocalMidnights() {
+        long lastOfDecember = BillTimestamps.toEpochMillis(2024, 12, 31, 23, 59, 59);
+        assertEquals(12, BillTimestamps.monthOf(lastOfDecember));
+        assertEquals(BillTimestamps.toEpochMillis(2024, 12, 1, 0, 0, 0),
+                BillTimestamps.monthStart(lastOfDecember));
+        assertEquals(BillTimestamps.toEpochMillis(2025, 1, 1, 0, 0, 0),
+                BillTimestamps.nextMonthStart(lastOfDecember));
+        assertEquals(1, BillTimestamps.monthOf(BillTimestamps.nextMonthStart(lastOfDecember)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntervalCsvReaderTest {
+
+    private static IntervalCsvReader reader(String csv) {
+        return new IntervalCsvReader(new StringReader(csv));
+    }
+
+    @Test
+    public void readsReadingsToTheWattHour() throws IOException {
+        IntervalCsvReader reader = reader("start,kwh\n"
+                + "2025-01-01 00:00,0.125\n"
+                + "\n"
+                + "\"2025-01-01 00:15:00\", 0.0004\n");
+
+        assertTrue(reader.next());
+        assertTrue(reader.isValid());
+        assertEquals(2, reader.getLineNumber());
+        assertEquals(BillTimestamps.toEpochMillis(2025, 1, 1, 0, 0, 0), reader.getStartMillis());
+        assertEquals(125, reader.getWattHours());
+
+        assertTrue(reader.next());
+        assertTrue(reader.isValid());
+        assertEquals(4, reader.getLineNumber());
+        assertEquals(BillTimestamps.toEpochMillis(2025, 1, 1, 0, 15, 0), reader.getStartMillis());
+        assertEquals(0, reader.getWattHours());
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void reportsBadRowsWithoutStopping() throws IOException {
+        IntervalCsvReader reader = reader("2025-01-01 00:00,1,2\n"
+                + "2025-01-01,1\n"
+                + "2025-01-01 00:30,-1\n"
+                + "2025-01-01 00:45,abc\n"
+                + "2025-01-01 01:00,0.5\n");
+
+        for (int line = 1; line <= 4; line++) {
+            assertTrue(reader.next());
+            assertFalse(reader.isValid());
+            assertEquals(line, reader.getLineNumber());
+            assertNotNull(reader.getError());
+        }
+        assertTrue(reader.next());
+        assertTrue(reader.isValid());
+        assertEquals(500, reader.getWattHours());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class IntervalStoreTest {
+
+    private static final long QUARTER_HOUR = 15 * 60_000L;
+    private static final long START = BillTimestamps.toEpochMillis(2025, 1, 1, 0, 0, 0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readingsSurviveReopeningAndSpanWindows() throws IOException {
+        File file = folder.newFile("intervals.bin");
+        int count = IntervalStore.WINDOW_RECORDS + 100;
+        try (IntervalStore store = IntervalStore.open(file)) {
+            for (int i = 0; i < count; i++) {
+                store.append(START + i * QUARTER_HOUR, i % 1000);
+            }
+        }
+        assertEquals(IntervalStore.HEADER_BYTES + (long) count * IntervalStore.RECORD_BYTES, file.length());
+
+        try (IntervalStore store = IntervalStore.open(file)) {
+            assertEquals(count, store.getCount());
+            assertEquals(START, store.getFirstStartMillis());
+            assertEquals(START + count * QUARTER_HOUR, store.getEndMillis());
+
+            IntervalStore.Cursor cursor = store.cursor(Long.MIN_VALUE, Long.MAX_VALUE);
+            for (int i = 0; i < count; i++) {
+                assertTrue(cursor.next());
+                assertEquals(START + i * QUARTER_HOUR, cursor.getStartMillis());
+                assertEquals(i % 1000, cursor.getWattHours());
+            }
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test
+    public void cursorCoversOnlyItsRange() throws IOException {
+        try (IntervalStore store = IntervalStore.open(folder.newFile())) {
+            // A gap of a missing reading between the two halves
+            for (int i = 0; i < 10; i++) {
+                store.append(START + (i < 5 ? i : i + 1) * QUARTER_HOUR, i);
+            }
+
+            IntervalStore.Cursor cursor = store.cursor(START + 2 * QUARTER_HOUR + 1, START + 7 * QUARTER_HOUR);
+            assertTrue(cursor.next());
+            assertEquals(3, cursor.getWattHours());
+            assertTrue(cursor.next());
+            assertEquals(4, cursor.getWattHours());
+            assertTrue(cursor.next());
+            assertEquals(START + 6 * QUARTER_HOUR, cursor.getStartMillis());
+            assertEquals(5, cursor.getWattHours());
+            assertFalse(cursor.next());
+
+            assertFalse(store.cursor(START + 20 * QUARTER_HOUR, Long.MAX_VALUE).next());
+        }
+    }
+
+    @Test
+    public void rejectsReadingsOutOfOrderOrNegative() throws IOException {
+        try (IntervalStore store = IntervalStore.open(folder.newFile())) {
+            store.append(START, 100);
+            try {
+                store.append(START + QUARTER_HOUR - 1, 100);
+                fail("Overlapping reading accepted");
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                store.append(START + QUARTER_HOUR, -1);
+                fail("Negative reading accepted");
+            } catch (IllegalArgumentException expected) {
+            }
+            assertEquals(1, store.getCount());
+        }
+    }
+
+    @Test
+    public void tornLastRecordIsDropped() throws IOException {
+        File file = folder.newFile();
+        try (IntervalStore store = IntervalStore.open(file)) {
+            store.append(START, 1);
+            store.append(START + QUARTER_HOUR, 2);
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.seek(raw.length());
+            raw.write(new byte[5]);
+        }
+
+        try (IntervalStore store = IntervalStore.open(file)) {
+            assertEquals(2, store.getCount());
+            store.append(START + 2 * QUARTER_HOUR, 3);
+            IntervalStore.Cursor cursor = store.cursor(START + 2 * QUARTER_HOUR, Long.MAX_VALUE);
+            assertTrue(cursor.next());
+            assertEquals(3, cursor.getWattHours());
+        }
+    }
+
+    @Test
+    public void refusesForeignFilesOtherIntervalsAndSecondOpen() throws IOException {
+        File file = folder.newFile();
+        try (IntervalStore store = IntervalStore.open(file)) {
+            try {
+                IntervalStore.open(file).close();
+                fail("Store opened twice");
+            } catch (IOException expected) {
+            }
+            assertEquals(0, store.getCount());
+        }
+        try {
+            IntervalStore.open(file, 30).close();
+            fail("Store opened with another interval length");
+        } catch (IOException expected) {
+        }
+
+        File foreign = folder.newFile();
+        try (RandomAccessFile raw = new RandomAccessFile(foreign, "rw")) {
+            raw.writeBytes("month,units,rebate\n");
+        }
+        try {
+            IntervalStore.open(foreign).close();
+            fail("Foreign file opened");
+        } catch (IOException expected) {
+        }
+    }
+}
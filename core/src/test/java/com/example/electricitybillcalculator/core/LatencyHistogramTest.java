@@ -0,0 +1,82 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueWithinOneSixteenth() {
+        long[] values = {0, 1, 31, 32, 33, 47, 48, 63, 64, 1000, 123_456, 999_999_999,
+                LatencyHistogram.MAX_TRACKABLE_NANOS};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            long highest = LatencyHistogram.highestInBucket(bucket);
+            assertTrue(value + " above its bucket", value <= highest);
+            assertTrue(value + " below its bucket", bucket == 0
+                    || value > LatencyHistogram.highestInBucket(bucket - 1));
+            assertTrue(value + " bucket too wide", highest - value <= Math.max(value / 16, 0));
+        }
+        // Buckets are contiguous
+        for (int bucket = 1; bucket <= LatencyHistogram.bucketOf(1 << 20); bucket++) {
+            assertEquals(LatencyHistogram.highestInBucket(bucket - 1) + 1,
+                    lowestInBucket(bucket));
+        }
+    }
+
+    private static long lowestInBucket(int bucket) {
+        long value = LatencyHistogram.highestInBucket(bucket);
+        while (value > 0 && LatencyHistogram.bucketOf(value - 1) == bucket) {
+            value--;
+        }
+        return value;
+    }
+
+    @Test
+    public void percentilesMatchSortedValues() {
+        Random random = new Random(21);
+        long[] values = new long[10_000];
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000 + (long) (random.nextGaussian() * 200 + 0.5) * 1000;
+            values[i] = Math.max(values[i], 0);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            long reported = histogram.getPercentileNanos(p);
+            assertTrue(p + ": " + reported + " vs " + exact,
+                    reported >= exact && reported - exact <= exact / 16);
+        }
+        assertEquals(values[values.length - 1], histogram.getPercentileNanos(100));
+        assertEquals(values[values.length - 1], histogram.getMaxNanos());
+        assertEquals(values.length, histogram.getCount());
+    }
+
+    @Test
+    public void hugeValuesKeepAnExactMax() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(10);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(Long.MAX_VALUE / 2, histogram.getMaxNanos());
+        assertEquals(10, histogram.getPercentileNanos(50));
+        assertTrue(histogram.getPercentileNanos(100) >= LatencyHistogram.MAX_TRACKABLE_NANOS);
+    }
+
+    @Test
+    public void resetForgetsObservations() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(5000);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+        assertEquals(0, histogram.getMaxNanos());
+    }
+}
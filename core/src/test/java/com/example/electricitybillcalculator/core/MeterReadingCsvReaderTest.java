@@ -0,0 +1,85 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MeterReadingCsvReaderTest {
+
+    private static MeterReadingCsvReader reader(String csv) {
+        return new MeterReadingCsvReader(new StringReader(csv));
+    }
+
+    @Test
+    public void readsRowsAndSkipsHeaderAndBlankLines() throws IOException {
+        MeterReadingCsvReader reader = reader("month,units,rebate,timestamp\n"
+                + "January,250.5,2,2025-01-31 23:00:00\n"
+                + "\n"
+                + "\"march\", 100 , 0\n");
+
+        assertTrue(reader.next());
+        assertTrue(reader.isValid());
+        assertEquals(2, reader.getLineNumber());
+        assertEquals("January", reader.getMonth());
+        assertEquals(250.5, reader.getUnits(), 0);
+        assertEquals(2, reader.getRebate(), 0);
+        assertEquals("2025-01-31 23:00:00", BillTimestamps.formatDateTime(reader.getTimestampMillis()));
+
+        assertTrue(reader.next());
+        assertTrue(reader.isValid());
+        assertEquals(4, reader.getLineNumber());
+        assertEquals("March", reader.getMonth());
+        assertEquals(MeterReadingCsvReader.NO_TIMESTAMP, reader.getTimestampMillis());
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void reportsBadRowsWithoutStopping() throws IOException {
+        MeterReadingCsvReader reader = reader("Smarch,10,0\n"
+                + "May,abc,0\n"
+                + "May,10,150\n"
+                + "May,10\n"
+                + "May,10,0,31/05/2025\n"
+                + "May,10,0,2025-02-30\n"
+                + "June,10,0,2025-06-30\n");
+
+        String[] expected = {"Unknown month", "Invalid number", "Rebate", "Expected 3 or 4", "Timestamp", "Timestamp"};
+        for (String message : expected) {
+            assertTrue(reader.next());
+            assertFalse(reader.isValid());
+            assertTrue(reader.getError(), reader.getError().startsWith(message));
+        }
+
+        assertTrue(reader.next());
+        assertTrue(reader.isValid());
+        assertEquals("2025-06-30 00:00:00", BillTimestamps.formatDateTime(reader.getTimestampMillis()));
+        assertEquals(7, reader.getLineNumber());
+    }
+
+    @Test
+    public void quotedFieldsMayHoldCommasAndQuotes() throws IOException {
+        MeterReadingCsvReader reader = reader("\"May, 2025\",10,0\n"
+                + "\"Ma\"\"y\",10,0\n"
+                + "\"May,10,0\n"
+                + "\"May\"x,10,0\n"
+                + " \"May\" ,\"10\",0,\n");
+
+        assertTrue(reader.next());
+        assertEquals("Unknown month 'May, 2025'", reader.getError());
+        assertTrue(reader.next());
+        assertEquals("Unknown month 'Ma\"y'", reader.getError());
+        assertTrue(reader.next());
+        assertTrue(reader.getError().startsWith("Unbalanced quotes"));
+        assertTrue(reader.next());
+        assertTrue(reader.getError().startsWith("Unbalanced quotes"));
+
+        assertTrue(reader.next());
+        assertTrue(reader.getError(), reader.isValid());
+        assertEquals("May", reader.getMonth());
+        assertEquals(10, reader.getUnits(), 0);
+        assertEquals(MeterReadingCsvReader.NO_TIMESTAMP, reader.getTimestampMillis());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.electricitybillcalculator.core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        LatencyHistogram histogram = Metrics.histogram("test.disabled");
+        Metrics.Counter counter = Metrics.counter("test.disabled.count");
+
+        long start = Metrics.start();
+        assertEquals(0, start);
+        Metrics.stop(histogram, start);
+        counter.increment();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, counter.getCount());
+    }
+
+    @Test
+    public void enabledRecordsAndReports() {
+        Metrics.setEnabled(true);
+        LatencyHistogram histogram = Metrics.histogram("test.enabled");
+        assertSame(histogram, Metrics.histogram("test.enabled"));
+
+        Metrics.stop(histogram, Metrics.start());
+        Metrics.counter("test.enabled.count").increment();
+
+        assertEquals(1, histogram.getCount());
+        String report = Metrics.report();
+        assertTrue(report, report.contains("test.enabled "));
+        assertTrue(report, report.contains("test.enabled.count"));
+        assertTrue(report, report.contains("p99 ms"));
+        // Operations never recorded are left out of the table
+        Metrics.histogram("test.never");
+        assertFalse(Metrics.report().contains("test.never"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.electricitybillcalculator.core;
+
+import org.junit.Test;
+
+import java.text.DecimalFormat;
+
+import static org.junit.Assert.*;
+
+public class MoneyFormatterTest {
+
+    private final DecimalFormat decimalFormat = new DecimalFormat("#,##0.00");
+
+    @Test
+    public void matchesDecimalFormat() {
+        long[] amounts = {0, 1, 9, 10, 99, 100, 4360, 99999, 100000, 123456, 99999999,
+                100000000, 123456789012L, -1, -4360, -123456};
+        for (long sen : amounts) {
+            String expected = "RM " + decimalFormat.format(sen / 100.0);
+            assertEquals(expected, MoneyFormatter.append(new StringBuilder(), sen).toString());
+        }
+    }
+
+    @Test
+    public void handlesExtremes() {
+        assertEquals("RM 92,233,720,368,547,758.07",
+                MoneyFormatter.append(new StringBuilder(), Long.MAX_VALUE).toString());
+        assertEquals("RM -92,233,720,368,547,758.08",
+                MoneyFormatter.append(new StringBuilder(), Long.MIN_VALUE).toString());
+    }
+
+    @Test
+    public void formatReusesBuffer() {
+        MoneyFormatter formatter = new MoneyFormatter();
+        int length = formatter.format(123456);
+        assertEquals("RM 1,234.56", new String(formatter.getChars(), 0, length));
+        length = formatter.format(5);
+        assertEquals("RM 0.05", new String(formatter.getChars(), 0, length));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.electricitybillcalculator.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class MonthlyRollupTest {
+
+    private static final long QUARTER_HOUR = 15 * 60_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Months as reported: start, watt-hours, intervals
+    private final List<long[]> months = new ArrayList<>();
+
+    private final MonthlyRollup rollup = new MonthlyRollup(
+            (monthStart, wattHours, intervals) -> months.add(new long[]{monthStart, wattHours, intervals}));
+
+    @Test
+    public void readingsCountTowardsTheMonthTheyStartIn() {
+        long lastOfJanuary = BillTimestamps.toEpochMillis(2025, 1, 31, 23, 45, 0);
+        rollup.add(lastOfJanuary - QUARTER_HOUR, 200);
+        rollup.add(lastOfJanuary, 300);
+        assertTrue(months.isEmpty());
+
+        rollup.add(lastOfJanuary + QUARTER_HOUR, 400);
+        // March has no readings and is not reported
+        rollup.add(BillTimestamps.toEpochMillis(2025, 4, 2, 8, 0, 0), 50);
+        rollup.finish();
+
+        assertEquals(3, months.size());
+        assertArrayEquals(new long[]{BillTimestamps.toEpochMillis(2025, 1, 1, 0, 0, 0), 500, 2}, months.get(0));
+        assertArrayEquals(new long[]{BillTimestamps.toEpochMillis(2025, 2, 1, 0, 0, 0), 400, 1}, months.get(1));
+        assertArrayEquals(new long[]{BillTimestamps.toEpochMillis(2025, 4, 1, 0, 0, 0), 50, 1}, months.get(2));
+    }
+
+    @Test
+    public void readingBeforeTheMonthInProgressIsRejected() {
+        rollup.add(BillTimestamps.toEpochMillis(2025, 2, 1, 0, 0, 0), 1);
+        try {
+            rollup.add(BillTimestamps.toEpochMillis(2025, 1, 31, 23, 45, 0), 1);
+            fail("Reading from an earlier month accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        rollup.finish();
+        rollup.finish();
+        assertEquals(1, months.size());
+    }
+
+    @Test
+    public void yearInTheStoreRollsUpIntoTwelveMonths() throws IOException {
+        long start = BillTimestamps.toEpochMillis(2025, 1, 1, 0, 0, 0);
+        long end = BillTimestamps.toEpochMillis(2026, 1, 1, 0, 0, 0);
+        try (IntervalStore store = IntervalStore.open(folder.newFile())) {
+            for (long t = start; t < end; t += QUARTER_HOUR) {
+                store.append(t, 125);
+            }
+
+            MonthlyRollup.rollUp(store.cursor(start, end), (monthStart, wattHours, intervals) ->
+                    months.add(new long[]{monthStart, wattHours, intervals}));
+        }
+
+        assertEquals(12, months.size());
+        long total = 0;
+        for (long[] month : months) {
+            long quarterHours = (BillTimestamps.nextMonthStart(month[0]) - month[0]) / QUARTER_HOUR;
+            assertEquals(quarterHours, month[2]);
+            assertEquals(quarterHours * 125, month[1]);
+            total += month[2];
+        }
+        assertEquals((end - start) / QUARTER_HOUR, total);
+        assertEquals(Arrays.asList(1, 12), Arrays.asList(BillTimestamps.monthOf(months.get(0)[0]),
+                BillTimestamps.monthOf(months.get(11)[0])));
+    }
+}
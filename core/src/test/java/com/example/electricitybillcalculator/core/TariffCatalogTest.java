@@ -0,0 +1,55 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TariffCatalogTest {
+
+    private static final long JAN_2025 = BillTimestamps.toEpochMillis(2025, 1, 1, 0, 0, 0);
+    private static final long JUL_2025 = BillTimestamps.toEpochMillis(2025, 7, 1, 0, 0, 0);
+
+    private static TariffSchedule flat(String utility, long from, double rateSen) {
+        return new TariffSchedule(utility, "Flat " + rateSen, from, new int[]{100}, new double[]{rateSen});
+    }
+
+    @Test
+    public void picksScheduleInEffect() {
+        TariffCatalog catalog = new TariffCatalog(Arrays.asList(
+                flat("A", JUL_2025, 30), flat("A", JAN_2025, 20), flat("B", JAN_2025, 50)));
+
+        assertEquals(2000, catalog.engineFor("A", JAN_2025).calculateChargesSen(100));
+        assertEquals(2000, catalog.engineFor("A", JUL_2025 - 1).calculateChargesSen(100));
+        assertEquals(3000, catalog.engineFor("A", JUL_2025).calculateChargesSen(100));
+        assertEquals(3000, catalog.engineFor("A", Long.MAX_VALUE).calculateChargesSen(100));
+        assertEquals(5000, catalog.engineFor("B", JUL_2025).calculateChargesSen(100));
+        assertEquals(3, catalog.getScheduleCount());
+    }
+
+    @Test
+    public void earliestScheduleCoversEarlierBills() {
+        TariffCatalog catalog = new TariffCatalog(Arrays.asList(flat("A", JAN_2025, 20)));
+        assertEquals(2000, catalog.engineFor("A", 0).calculateChargesSen(100));
+    }
+
+    @Test
+    public void laterScheduleWinsOnTheSameDate() {
+        TariffCatalog catalog = new TariffCatalog(Arrays.asList(
+                flat("A", JAN_2025, 20), flat("A", JAN_2025, 25)));
+        assertEquals(2500, catalog.engineFor("A", JAN_2025).calculateChargesSen(100));
+        assertEquals(1, catalog.getScheduleCount());
+    }
+
+    @Test
+    public void unknownUtilityHasNoEngine() {
+        assertNull(TariffCatalog.builtIn().engineFor("nobody", JAN_2025));
+        assertEquals(TariffEngine.domestic().calculateChargesSen(450),
+                TariffCatalog.builtIn().engineFor(TariffCatalog.DEFAULT_UTILITY, JAN_2025).calculateChargesSen(450));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidBlocks() {
+        new TariffCatalog(Arrays.asList(new TariffSchedule("A", "Bad", 0, new int[]{200, 100}, new double[]{1, 2})));
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TariffEngineTest {
+
+    private final TariffEngine engine = TariffEngine.domestic();
+
+    // Straightforward block-by-block walk in exact integer arithmetic, used as the
+    // reference result: tenths of a kWh times tenths of a sen per kWh, rounded half up.
+    private static long reference(int unitTenths) {
+        int[] limits = {200, 300, 600, 1000};
+        int[] rateTenths = {218, 334, 516, 546};
+        long charge = 0;
+        int lower = 0;
+        for (int i = 0; i < limits.length; i++) {
+            int upper = i == limits.length - 1 ? Integer.MAX_VALUE : limits[i] * 10;
+            if (unitTenths > lower) {
+                charge += (long) (Math.min(unitTenths, upper) - lower) * rateTenths[i];
+            }
+            lower = limits[i] * 10;
+        }
+        return (charge + 50) / 100;
+    }
+
+    @Test
+    public void firstBlock() {
+        assertEquals(2180, engine.calculateChargesSen(100));
+        assertEquals(4360, engine.calculateChargesSen(200));
+    }
+
+    @Test
+    public void blockBoundaries() {
+        assertEquals(4360 + 3340, engine.calculateChargesSen(300));
+        assertEquals(4360 + 3340 + 15480, engine.calculateChargesSen(600));
+        assertEquals(4360 + 3340 + 15480 + 21840, engine.calculateChargesSen(1000));
+    }
+
+    @Test
+    public void matchesReferenceAcrossAllBlocks() {
+        for (int tenths = 0; tenths <= 12000; tenths++) {
+            double units = tenths / 10.0;
+            assertEquals("units=" + units, reference(tenths), engine.calculateChargesSen(units));
+        }
+    }
+
+    @Test
+    public void nonPositiveUnitsCostNothing() {
+        assertEquals(0, engine.calculateChargesSen(0));
+        assertEquals(0, engine.calculateChargesSen(-5));
+        assertEquals(0, engine.calculateChargesSen(Double.NaN));
+    }
+
+    @Test
+    public void rebateIsDeductedAsPercentageRoundedToTheSen() {
+        assertEquals(9500, engine.applyRebate(10000, 5));
+        // 3% of RM 43.60 is 130.8 sen, which rounds to 131
+        assertEquals(4229, engine.applyRebate(4360, 3));
+        assertEquals(engine.applyRebate(engine.calculateChargesSen(450), 3),
+                engine.calculateFinalCostSen(450, 3));
+    }
+
+    @Test
+    public void customTableWithUnevenLimits() {
+        TariffEngine custom = new TariffEngine(new int[]{50, 125}, new double[]{10, 20});
+        assertEquals(500, custom.calculateChargesSen(50));
+        assertEquals(500 + 1500, custom.calculateChargesSen(125));
+        assertEquals(500 + 1500 + 500, custom.calculateChargesSen(150));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDecreasingLimits() {
+        new TariffEngine(new int[]{300, 200}, new double[]{1, 2});
+    }
+
+    @Test
+    public void batchRatingMatchesScalarRating() {
+        Random random = new Random(24);
+        TariffEngine[] engines = {engine,
+                new TariffEngine(new int[]{50, 125}, new double[]{10, 20}),
+                new TariffEngine(new int[]{100, 200, 300}, new double[]{12.345, 0, 7.5})};
+        int count = 5000;
+        double[] units = new double[count];
+        double[] rebates = new double[count];
+        for (int i = 0; i < count; i++) {
+            switch (i % 5) {
+                case 0: units[i] = random.nextInt(1500); break;              // whole kWh
+                case 1: units[i] = random.nextInt(15000) / 10.0; break;      // tenths
+                case 2: units[i] = random.nextDouble() * 2000; break;        // anything
+                case 3: units[i] = new int[]{50, 125, 200, 300, 600, 1000}[random.nextInt(6)]; break;
+                default: units[i] = new double[]{0, -3, Double.NaN, 1e9}[random.nextInt(4)];
+            }
+            rebates[i] = random.nextInt(10_001) / 100.0;
+        }
+
+        for (TariffEngine custom : engines) {
+            long[] totalCharges = new long[count];
+            long[] finalCost = new long[count];
+            custom.rate(units, rebates, totalCharges, finalCost, count);
+            for (int i = 0; i < count; i++) {
+                long charges = custom.calculateChargesSen(units[i]);
+                assertEquals("units=" + units[i], charges, totalCharges[i]);
+                assertEquals("units=" + units[i], custom.applyRebate(charges, rebates[i]), finalCost[i]);
+            }
+        }
+    }
+
+    @Test
+    public void batchChargesStartAtTheOffset() {
+        double[] units = {100, 250, 450, 850};
+        long[] charges = new long[3];
+        engine.calculateChargesSen(units, 1, charges, 2);
+
+        assertEquals(engine.calculateChargesSen(250), charges[0]);
+        assertEquals(engine.calculateChargesSen(450), charges[1]);
+        assertEquals(0, charges[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchRejectsBillsPastTheArray() {
+        engine.calculateChargesSen(new double[4], 2, new long[4], 3);
+    }
+
+    @Test
+    public void maxUnitsMatchesScanningForwardOnDomesticTariff() {
+        double[] rebates = {0, 1, 2.5, 5};
+        for (double rebate : rebates) {
+            long units = 0;
+            for (long budget = 0; budget <= 60_000; budget += 7) {
+                // Scan forward to the last kWh that still fits, as a customer would
+                while (engine.calculateFinalCostSen(units + 1, rebate) <= budget) {
+                    units++;
+                }
+                assertEquals("budget=" + budget + " rebate=" + rebate,
+                        units, engine.maxUnitsForBudget(budget, rebate));
+            }
+        }
+    }
+
+    @Test
+    public void maxUnitsRoundTripsOnRandomTables() {
+        Random random = new Random(23);
+        for (int table = 0; table < 500; table++) {
+            int blocks = 1 + random.nextInt(6);
+            int[] limits = new int[blocks];
+            double[] rates = new double[blocks];
+            int limit = 0;
+            for (int i = 0; i < blocks; i++) {
+                limit += 1 + random.nextInt(400);
+                limits[i] = limit;
+                // Some free blocks, but never the last, which would make budgets unlimited
+                rates[i] = i < blocks - 1 && random.nextInt(8) == 0
+                        ? 0 : 1 + random.nextInt(9000) / 100.0;
+            }
+            TariffEngine custom = new TariffEngine(limits, rates);
+
+            for (int query = 0; query < 200; query++) {
+                long budget = random.nextInt(200_000);
+                double rebate = random.nextInt(4) == 0 ? 0 : random.nextInt(10_000) / 100.0;
+                long units = custom.maxUnitsForBudget(budget, rebate);
+
+                String message = "limits=" + Arrays.toString(limits) + " rates="
+                        + Arrays.toString(rates) + " budget=" + budget + " rebate=" + rebate;
+                assertTrue(message, custom.calculateFinalCostSen(units, rebate) <= budget);
+                assertTrue(message, custom.calculateFinalCostSen(units + 1, rebate) > budget);
+            }
+        }
+    }
+
+    @Test
+    public void batchMatchesSingleQueries() {
+        long[] budgets = {0, 1, 2180, 4360, 7700, 23180, 45020, 100_000, 999_999};
+        long[] maxUnits = new long[budgets.length + 2];
+        engine.maxUnitsForBudgets(budgets, 3, maxUnits, budgets.length);
+
+        for (int i = 0; i < budgets.length; i++) {
+            assertEquals(engine.maxUnitsForBudget(budgets[i], 3), maxUnits[i]);
+        }
+        assertEquals(0, maxUnits[budgets.length]);
+    }
+
+    @Test
+    public void budgetsOnBlockBoundariesBuyTheWholeBlock() {
+        assertEquals(200, engine.maxUnitsForBudget(4360, 0));
+        assertEquals(300, engine.maxUnitsForBudget(4360 + 3340, 0));
+        assertEquals(299, engine.maxUnitsForBudget(4360 + 3340 - 1, 0));
+        assertEquals(0, engine.maxUnitsForBudget(0, 0));
+    }
+
+    @Test
+    public void fullRebateOrFreeLastBlockIsUnlimited() {
+        assertEquals(TariffEngine.UNLIMITED, engine.maxUnitsForBudget(0, 100));
+
+        TariffEngine freeAbove = new TariffEngine(new int[]{100, 200}, new double[]{10, 0});
+        assertEquals(50, freeAbove.maxUnitsForBudget(500, 0));
+        assertEquals(TariffEngine.UNLIMITED, freeAbove.maxUnitsForBudget(1000, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeBudget() {
+        engine.maxUnitsForBudget(-1, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRebateAboveHundredPercent() {
+        engine.maxUnitsForBudgets(new long[]{100}, 101, new long[1], 1);
+    }
+
+    @Test
+    public void coprimeLimitsFarApartAreRatedWithoutAHugeTable() {
+        TariffEngine wide = new TariffEngine(new int[]{201, 2_000_000_000}, new double[]{10, 20});
+        assertEquals(1000, wide.calculateChargesSen(100));
+        assertEquals(2010, wide.calculateChargesSen(201));
+        assertEquals(2010 + 2000, wide.calculateChargesSen(301));
+        assertEquals(200, wide.maxUnitsForBudget(2000, 0));
+
+        // The same blocks rated through the bucket table and by searching the limits
+        TariffEngine table = new TariffEngine(new int[]{201, 307, 1009}, new double[]{10, 20, 30});
+        TariffEngine search = new TariffEngine(new int[]{201, 307, 1009, 2_000_000_000},
+                new double[]{10, 20, 30, 30});
+        for (int tenths = 0; tenths <= 15000; tenths++) {
+            assertEquals(table.calculateChargesSen(tenths / 10.0), search.calculateChargesSen(tenths / 10.0));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WhatIfSimulatorTest {
+
+    private static final List<TariffSchedule> SCHEDULES = Arrays.asList(
+            new TariffSchedule("TNB", "Domestic", 0,
+                    TariffEngine.domestic().getLimits(), TariffEngine.domestic().getRatesSen()),
+            new TariffSchedule("TNB", "Flat", 0, new int[]{1}, new double[]{45.5}));
+    private static final double[] REBATES = {0, 1, 2, 3, 4, 5};
+
+    @Test
+    public void parallelTotalsMatchRatingEachBill() {
+        Random random = new Random(18);
+        double[] units = new double[50_000];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = random.nextInt(1500) + (random.nextBoolean() ? 0.5 : 0);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // A small threshold makes the ranges split many times over
+            WhatIfResult result = new WhatIfSimulator(pool, 1000)
+                    .simulate(units, units.length, SCHEDULES, REBATES);
+
+            assertEquals(units.length, result.getBillCount());
+            for (int s = 0; s < SCHEDULES.size(); s++) {
+                TariffEngine engine = SCHEDULES.get(s).compile();
+                long charges = 0;
+                long[] finalCost = new long[REBATES.length];
+                for (double kwh : units) {
+                    long billCharges = engine.calculateChargesSen(kwh);
+                    charges += billCharges;
+                    for (int r = 0; r < REBATES.length; r++) {
+                        finalCost[r] += engine.applyRebate(billCharges, REBATES[r]);
+                    }
+                }
+                assertEquals(charges, result.getTotalChargesSen(s));
+                for (int r = 0; r < REBATES.length; r++) {
+                    assertEquals(finalCost[r], result.getFinalCostSen(s, r));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void onlyCountedBillsAreRated() {
+        double[] units = {100, 300, 999};
+        WhatIfResult result = new WhatIfSimulator().simulate(units, 2, SCHEDULES, new double[]{0});
+
+        assertEquals(2, result.getBillCount());
+        // 100 kWh at 21.8 sen, and 200 at 21.8 plus 100 at 33.4
+        assertEquals(2180 + 7700, result.getTotalChargesSen(0));
+        assertEquals(0, new WhatIfSimulator().simulate(units, 0, SCHEDULES, REBATES).getFinalCostSen(1, 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRebateOutOfRange() {
+        new WhatIfSimulator().simulate(new double[]{100}, 1, SCHEDULES, new double[]{101});
+    }
+}
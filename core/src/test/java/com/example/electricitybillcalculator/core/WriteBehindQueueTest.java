@@ -0,0 +1,221 @@
+package com.example.electricitybillcalculator.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WriteBehindQueueTest {
+
+    // Batches as the writer saw them
+    private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void fullBatchIsWrittenWithoutWaitingForTheDelay() throws Exception {
+        CountDownLatch written = new CountDownLatch(3);
+        try (WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(
+                batches::add, 3, TimeUnit.HOURS.toMillis(1), "test-writer")) {
+            queue.submit(null, "a", error -> written.countDown());
+            queue.submit(null, "b", error -> written.countDown());
+            queue.submit(null, "c", error -> written.countDown());
+
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            assertEquals(1, batches.size());
+            assertEquals(Arrays.asList("a", "b", "c"), batches.get(0));
+        }
+    }
+
+    @Test
+    public void partialBatchIsWrittenAfterTheDelay() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        try (WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(
+                batches::add, 100, 20, "test-writer")) {
+            queue.submit(null, "a", error -> written.countDown());
+
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(Arrays.asList("a")), batches);
+        }
+    }
+
+    @Test
+    public void writesWithTheSameKeyCoalesce() throws Exception {
+        AtomicInteger callbacks = new AtomicInteger();
+        try (WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(
+                batches::add, 100, TimeUnit.HOURS.toMillis(1), "test-writer")) {
+            queue.submit(1, "first", error -> callbacks.incrementAndGet());
+            queue.submit(2, "other", error -> callbacks.incrementAndGet());
+            queue.submit(1, "second", error -> callbacks.incrementAndGet());
+            queue.submit(null, "new", error -> callbacks.incrementAndGet());
+            queue.submit(null, "new", error -> callbacks.incrementAndGet());
+            queue.flush();
+
+            // The replaced write keeps its place and is reported with its replacement
+            assertEquals(Arrays.asList(Arrays.asList("second", "other", "new", "new")), batches);
+            assertEquals(5, callbacks.get());
+            assertEquals(1, queue.getCoalescedCount());
+            assertEquals(4, queue.getRowCount());
+        }
+    }
+
+    @Test
+    public void offerRefusesRatherThanBlockingWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        try (WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(batch -> {
+            writing.countDown();
+            release.await();
+            batches.add(batch);
+        }, 2, 0, "test-writer")) {
+            // Hold the writer in its first batch so the next writes stay waiting
+            assertTrue(queue.offer(null, "first", null));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            assertTrue(queue.offer(1, "a", null));
+            assertTrue(queue.offer(2, "b", null));
+
+            assertFalse(queue.offer(3, "c", null));
+            assertTrue(queue.offer(1, "a2", null));
+
+            release.countDown();
+            queue.flush();
+            assertEquals(Arrays.asList(Arrays.asList("first"), Arrays.asList("a2", "b")), batches);
+        }
+    }
+
+    @Test
+    public void flushWaitsUntilEverythingIsWritten() throws Exception {
+        try (WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(
+                batches::add, 2, TimeUnit.HOURS.toMillis(1), "test-writer")) {
+            for (int i = 0; i < 5; i++) {
+                queue.submit(null, "w" + i, null);
+            }
+            queue.flush();
+
+            int rows = 0;
+            for (List<String> batch : batches) {
+                assertTrue(batch.size() <= 2);
+                rows += batch.size();
+            }
+            assertEquals(5, rows);
+            assertEquals(0, queue.getPendingCount());
+        }
+    }
+
+    @Test
+    public void failedBatchIsReportedToEveryWrite() throws Exception {
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        try (WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(batch -> {
+            throw new IllegalStateException("disk full");
+        }, 10, TimeUnit.HOURS.toMillis(1), "test-writer")) {
+            queue.submit(null, "a", errors::add);
+            queue.submit(null, "b", errors::add);
+            queue.flush();
+
+            assertEquals(2, errors.size());
+            assertEquals("disk full", errors.get(0).getMessage());
+        }
+    }
+
+    @Test
+    public void writerCanFailOneWriteOfABatch() throws Exception {
+        List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<WriteBehindQueue<Integer, String>> self = new AtomicReference<>();
+        try (WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(batch -> {
+            batches.add(batch);
+            self.get().failWrite(batch.indexOf("missing"), new IllegalStateException("no row"));
+        }, 10, TimeUnit.HOURS.toMillis(1), "test-writer")) {
+            self.set(queue);
+            queue.submit(null, "a", errors::add);
+            queue.submit(null, "missing", errors::add);
+            queue.flush();
+
+            assertEquals(1, batches.size());
+            assertEquals(2, errors.size());
+            assertNull(errors.get(0));
+            assertEquals("no row", errors.get(1).getMessage());
+            try {
+                queue.failWrite(0, new Exception());
+                fail("Write failed outside the batch writer");
+            } catch (IllegalStateException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void throwingCallbackDoesNotStopTheWriter() throws Exception {
+        List<RuntimeException> reported = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger callbacks = new AtomicInteger();
+        try (WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(
+                batches::add, 1, TimeUnit.HOURS.toMillis(1), "test-writer")) {
+            queue.setCallbackErrorHandler(reported::add);
+            queue.submit(null, "a", error -> {
+                throw new IllegalStateException("callback bug");
+            });
+            queue.submit(null, "b", error -> callbacks.incrementAndGet());
+            queue.submit(null, "c", error -> callbacks.incrementAndGet());
+            queue.flush();
+
+            assertEquals(2, callbacks.get());
+            assertEquals(1, queue.getCallbackErrorCount());
+            assertEquals("callback bug", reported.get(0).getMessage());
+            assertEquals(3, queue.getRowCount());
+        }
+    }
+
+    @Test
+    public void closeWritesEverythingStillWaiting() throws Exception {
+        AtomicReference<Exception> error = new AtomicReference<>(new Exception("not written"));
+        WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(
+                batches::add, 100, TimeUnit.HOURS.toMillis(1), "test-writer");
+        queue.submit(null, "a", error::set);
+        queue.close();
+
+        assertNull(error.get());
+        assertEquals(Arrays.asList(Arrays.asList("a")), batches);
+        try {
+            queue.submit(null, "b", null);
+            fail("Closed queue accepted a write");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void concurrentSubmittersLoseNoWrites() throws Exception {
+        int threads = 4;
+        int perThread = 2_000;
+        AtomicInteger written = new AtomicInteger();
+        try (WriteBehindQueue<Integer, String> queue = new WriteBehindQueue<>(
+                batches::add, 64, 5, "test-writer")) {
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                submitters.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < perThread; i++) {
+                            queue.submit(null, thread + ":" + i, error -> written.incrementAndGet());
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+            }
+            for (Thread submitter : submitters) {
+                submitter.start();
+            }
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+            queue.flush();
+
+            assertEquals(threads * perThread, written.get());
+            assertEquals(threads * perThread, queue.getRowCount());
+            assertTrue(queue.getBatchCount() < threads * perThread);
+        }
+    }
+}
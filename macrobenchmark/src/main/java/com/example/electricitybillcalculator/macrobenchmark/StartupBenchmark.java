@@ -0,0 +1,54 @@
+package com.example.electricitybillcalculator.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import kotlin.Unit;
+
+/**
+ * Cold start of the app from the launcher to the calculator screen.
+ *
+ * <p>timeToInitialDisplayMs is the splash screen's first frame; timeToFullDisplayMs is
+ * when MainActivity reports itself fully drawn, i.e. interactive. StartupWarmUpMs is the
+ * database and tariff warm-up the splash screen waits for.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String PACKAGE = "com.example.electricitybillcalculator";
+    private static final int ITERATIONS = 10;
+
+    // Must match StartupTrace.SECTION_WARM_UP in the app
+    private static final String SECTION_WARM_UP = "StartupWarmUp";
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartup() {
+        benchmarkRule.measureRepeated(
+                PACKAGE,
+                Arrays.asList(new StartupTimingMetric(), new TraceSectionMetric(SECTION_WARM_UP)),
+                CompilationMode.DEFAULT,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}